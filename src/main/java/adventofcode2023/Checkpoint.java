@@ -0,0 +1,105 @@
+package adventofcode2023;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Periodically saves the state of a long running computation to a small
+ * properties file, so it can be continued after the run was interrupted.
+ *
+ * The state is written to a temporary file next to the checkpoint, flushed to
+ * disk and then atomically renamed over the previous checkpoint, so a crash
+ * while saving never leaves a half written checkpoint behind.
+ *
+ * Every checkpoint records the fingerprint of the input it was made for, and
+ * is only loaded for that same input: continuing a walk over another input
+ * would silently give a wrong answer.
+ */
+public final class Checkpoint {
+    public static final String RESUME = "--resume";
+
+    private static final String FINGERPRINT = "fingerprint";
+
+    private final Path file;
+    private final Duration interval;
+    private final String fingerprint;
+    private Instant lastSave = Instant.now();
+
+    /**
+     * A checkpoint for the input with the fingerprint, see {@link Fingerprint}.
+     */
+    public Checkpoint(Path file, Duration interval, String fingerprint) {
+        this.file = file;
+        this.interval = interval;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Whether the program was started with {@value #RESUME}.
+     */
+    public static boolean resume(String[] args) {
+        return Arrays.asList(args).contains(RESUME);
+    }
+
+    /**
+     * The last saved state, or empty when there is no checkpoint. Throws an
+     * {@link IllegalStateException} when the checkpoint was saved for another
+     * input.
+     */
+    public Optional<Properties> load() throws IOException {
+        if (!Files.exists(file))
+            return Optional.empty();
+        var state = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            state.load(in);
+        }
+        if (!fingerprint.equals(state.remove(FINGERPRINT)))
+            throw new IllegalStateException("The checkpoint " + file
+                    + " was saved for another input, remove it to start over");
+        return Optional.of(state);
+    }
+
+    /**
+     * Whether the interval has passed since the last save.
+     */
+    public boolean due() {
+        return Duration.between(lastSave, Instant.now()).compareTo(interval) >= 0;
+    }
+
+    public void save(Properties state) throws IOException {
+        var stored = new Properties();
+        stored.putAll(state);
+        stored.setProperty(FINGERPRINT, fingerprint);
+        var temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            stored.store(Channels.newOutputStream(channel), null);
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        lastSave = Instant.now();
+    }
+
+    /**
+     * Removes the checkpoint once the computation has finished.
+     */
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Override
+    public String toString() {
+        return "Checkpoint[" + file + " every " + interval + "]";
+    }
+}
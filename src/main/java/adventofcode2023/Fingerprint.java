@@ -0,0 +1,35 @@
+package adventofcode2023;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Identifies an input by a hash of its contents, so state that was derived
+ * from one input, like a checkpoint or a file of tables, isn't used for
+ * another input.
+ */
+public final class Fingerprint {
+    private Fingerprint() {
+    }
+
+    /**
+     * The SHA-256 of the parts in hex. Every part is prefixed with its length,
+     * so {@code "ab", "c"} and {@code "a", "bc"} differ.
+     */
+    public static String of(CharSequence... parts) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            for (CharSequence part : parts) {
+                var bytes = part.toString().getBytes(StandardCharsets.UTF_8);
+                digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+                digest.update(bytes);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Every JVM has SHA-256", e);
+        }
+    }
+}
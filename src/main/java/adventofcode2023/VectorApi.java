@@ -0,0 +1,15 @@
+package adventofcode2023;
+
+/**
+ * Whether the Vector API can be used. It lives in the incubator module
+ * {@code jdk.incubator.vector}, which is only there when the JVM is started
+ * with {@code --add-modules jdk.incubator.vector}. Classes that use the API
+ * fail to load without the module, so callers check {@link #AVAILABLE} before
+ * referring to them and fall back to scalar code otherwise.
+ */
+public final class VectorApi {
+    public static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private VectorApi() {
+    }
+}
@@ -136,6 +136,7 @@ public class Day03Part1 {
         }
         printDebugInfo(numbers, symbols, parts);
         System.out.println("Sum of all partnumbers: " + parts.stream().collect(Collectors.summingInt(Number::value)));
+        System.out.println("Sum of all partnumbers using the grid: " + Schematic.scan(lines).partNumberSum());
     }
 
     private static List<Number> getNumbers(List<String> lines) {
@@ -153,6 +153,7 @@ public class Day03Part2 {
         }
         System.out
                 .println("Sum of all gear ratios: " + gears.stream().collect(Collectors.summingInt(Gear::gearRatio)));
+        System.out.println("Sum of all gear ratios using the grid: " + Schematic.scan(lines).gearRatioSum());
     }
 
     private static List<Number> getNumbers(List<String> lines) {
@@ -0,0 +1,98 @@
+package adventofcode2023.day03;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the part numbers and gears of an engine schematic in a single pass
+ * over a flat grid, without an object per cell.
+ *
+ * The schematic is copied into a byte grid with a border of '.' around it, so
+ * the 8 neighbours of every cell are at fixed offsets {@code ±1}, {@code ±w}
+ * and {@code ±w±1} without bounds checks. Every digit cell gets the id of its
+ * number in an int grid of labels. The scan labels one row and then looks at
+ * the symbols of the row above it, whose neighbours are all labelled by then:
+ * a symbol makes the numbers around it part numbers, and a {@code *} with
+ * exactly two numbers around it is a gear.
+ */
+final class Schematic {
+    record Result(long partNumberSum, long gearRatioSum) {
+    }
+
+    private Schematic() {
+    }
+
+    static Result scan(List<String> lines) {
+        int rows = lines.size();
+        int cols = lines.stream().mapToInt(String::length).max().orElse(0);
+        int w = cols + 2;
+        var grid = new byte[(rows + 2) * w];
+        Arrays.fill(grid, (byte) '.');
+        for (int row = 0; row < rows; row++) {
+            var line = lines.get(row);
+            for (int col = 0; col < line.length(); col++)
+                grid[(row + 1) * w + col + 1] = (byte) line.charAt(col);
+        }
+
+        var labels = new int[grid.length];
+        var values = new int[64];
+        var isPart = new boolean[64];
+        int numbers = 1; // label 0 is no number
+        var offsets = new int[] { -w - 1, -w, -w + 1, -1, 1, w - 1, w, w + 1 };
+        var around = new int[offsets.length];
+        long partNumberSum = 0;
+        long gearRatioSum = 0;
+
+        for (int row = 1; row <= rows + 1; row++) {
+            // label the numbers on this row
+            for (int i = row * w + 1, end = row * w + w - 1; row <= rows && i < end; i++) {
+                if (!isDigit(grid[i]))
+                    continue;
+                if (numbers == values.length) {
+                    values = Arrays.copyOf(values, numbers * 2);
+                    isPart = Arrays.copyOf(isPart, numbers * 2);
+                }
+                int value = 0;
+                for (; isDigit(grid[i]); i++) {
+                    value = value * 10 + (grid[i] - '0');
+                    labels[i] = numbers;
+                }
+                values[numbers++] = value;
+            }
+
+            // the symbols on the row above have all their neighbours labelled
+            for (int i = (row - 1) * w + 1, end = (row - 1) * w + w - 1; row > 1 && i < end; i++) {
+                byte cell = grid[i];
+                if (cell == '.' || isDigit(cell))
+                    continue;
+                int count = 0;
+                for (int offset : offsets) {
+                    int label = labels[i + offset];
+                    if (label != 0 && !contains(around, count, label))
+                        around[count++] = label;
+                }
+                for (int n = 0; n < count; n++) {
+                    if (!isPart[around[n]]) {
+                        isPart[around[n]] = true;
+                        partNumberSum += values[around[n]];
+                    }
+                }
+                if (cell == '*' && count == 2)
+                    gearRatioSum += (long) values[around[0]] * values[around[1]];
+            }
+        }
+        return new Result(partNumberSum, gearRatioSum);
+    }
+
+    private static boolean isDigit(byte cell) {
+        return cell >= '0' && cell <= '9';
+    }
+
+    private static boolean contains(int[] labels, int count, int label) {
+        for (int n = 0; n < count; n++) {
+            if (labels[n] == label)
+                return true;
+        }
+        return false;
+    }
+}
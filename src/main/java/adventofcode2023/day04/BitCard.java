@@ -0,0 +1,128 @@
+package adventofcode2023.day04;
+
+import java.util.Arrays;
+
+/**
+ * A scratchcard with its winning numbers and the numbers you have as bitsets:
+ * bit {@code n} is set when number {@code n} is on the card. The bitsets are
+ * two longs, enough for numbers below 128 as in the puzzle input, and only
+ * grow for larger numbers, up to {@value #MAX_NUMBER}. The number of matches is
+ * the popcount of their AND.
+ *
+ * A bitset can't hold a number twice, so a card that lists a number twice on
+ * the same side is rejected; the puzzle never does, and counting such a card
+ * would differ from {@link Day04Part1.Card}, which counts every listed number
+ * you have.
+ *
+ * Cards are parsed straight from their line, without a list of boxed numbers
+ * in between. The bitsets are trimmed to the last non-empty long, so cards with
+ * the same numbers are equal.
+ */
+record BitCard(int number, long[] winning, long[] hand) {
+    static final int MAX_NUMBER = 1 << 20;
+
+    BitCard {
+        winning = trim(winning);
+        hand = trim(hand);
+    }
+
+    private static long[] trim(long[] bits) {
+        int length = bits.length;
+        while (length > 2 && bits[length - 1] == 0)
+            length--;
+        return Arrays.copyOf(bits, Math.max(length, 2));
+    }
+
+    int matches() {
+        int matches = 0;
+        for (int i = 0, n = Math.min(winning.length, hand.length); i < n; i++)
+            matches += Long.bitCount(winning[i] & hand[i]);
+        return matches;
+    }
+
+    int score() {
+        int matches = matches();
+        return matches == 0 ? 0 : 1 << (matches - 1);
+    }
+
+    /**
+     * Parses a line like {@code Card 1: 41 48 83 86 17 | 83 86  6 31 17  9 48 53}.
+     */
+    static BitCard parse(CharSequence line) {
+        int colon = indexOf(line, ':', 0);
+        int bar = indexOf(line, '|', colon);
+        if (colon < 0 || bar < 0)
+            throw new IllegalArgumentException("Not a card: " + line);
+
+        int number = 0;
+        for (int i = 0; i < colon; i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9')
+                number = digit(number, c, Integer.MAX_VALUE, line);
+        }
+        return new BitCard(number, numbers(line, colon + 1, bar), numbers(line, bar + 1, line.length()));
+    }
+
+    private static int indexOf(CharSequence line, char c, int from) {
+        for (int i = Math.max(from, 0); i < line.length(); i++) {
+            if (line.charAt(i) == c)
+                return i;
+        }
+        return -1;
+    }
+
+    private static long[] numbers(CharSequence line, int from, int to) {
+        var bits = new long[2];
+        int value = -1;
+        for (int i = from; i <= to; i++) {
+            char c = i < to ? line.charAt(i) : ' ';
+            if (c >= '0' && c <= '9') {
+                value = digit(Math.max(value, 0), c, MAX_NUMBER, line);
+            } else if (Character.isWhitespace(c)) {
+                if (value >= 0) {
+                    if (value >>> 6 >= bits.length)
+                        bits = Arrays.copyOf(bits, Math.max(bits.length * 2, (value >>> 6) + 1));
+                    if ((bits[value >>> 6] & 1L << value) != 0)
+                        throw new IllegalArgumentException("The number " + value + " is listed twice in " + line);
+                    bits[value >>> 6] |= 1L << value;
+                    value = -1;
+                }
+            } else {
+                throw new IllegalArgumentException("Unexpected " + c + " in " + line);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Appends the digit to the number, which may not get larger than
+     * {@code max}.
+     */
+    private static int digit(int number, char digit, int max, CharSequence line) {
+        try {
+            int value = Math.addExact(Math.multiplyExact(number, 10), digit - '0');
+            if (value <= max)
+                return value;
+        } catch (ArithmeticException e) {
+            // too large as well
+        }
+        throw new IllegalArgumentException("Number larger than " + max + " in " + line);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof BitCard other && number == other.number && Arrays.equals(winning, other.winning)
+                && Arrays.equals(hand, other.hand);
+    }
+
+    @Override
+    public int hashCode() {
+        return (31 * number + Arrays.hashCode(winning)) * 31 + Arrays.hashCode(hand);
+    }
+
+    @Override
+    public String toString() {
+        return "BitCard[number=" + number + ", winning=" + Arrays.toString(winning) + ", hand="
+                + Arrays.toString(hand) + "]";
+    }
+}
@@ -152,6 +152,8 @@ public class Day04Part1 {
         List<Card> cards = (List<Card>) parser.getResult();
 
         System.out.println("Sum of scores: " + cards.stream().collect(Collectors.summingInt(Card::score)));
+        System.out.println("Sum of scores using bitsets: "
+                + input.lines().filter(line -> !line.isBlank()).map(BitCard::parse).mapToInt(BitCard::score).sum());
     }
 
     private static <T> List<T> newList(T item) {
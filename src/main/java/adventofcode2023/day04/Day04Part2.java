@@ -1,12 +1,12 @@
 package adventofcode2023.day04;
 
+import java.math.BigInteger;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import com.martijndashorst.runcc.patterns.interpreter.parsergenerator.Parser;
 import com.martijndashorst.runcc.patterns.interpreter.parsergenerator.Token;
@@ -85,19 +85,47 @@ public class Day04Part2 {
             { Token.IGNORED, "`whitespaces`" },
     };
 
-    static int maxCardNumber;
-
     record Card(Integer number, List<Integer> winning, List<Integer> hand) {
         int score() {
-            int winningCardsInHand = (int) hand.stream().filter(winning::contains).count();
+            int winningCardsInHand = matches();
             return winningCardsInHand == 0 ? 0 : (int) Math.pow(2, winningCardsInHand - 1);
         }
 
-        List<Integer> copies() {
-            int winningCardsInHand = (int) hand.stream().filter(winning::contains).count();
-            int max = Math.min(maxCardNumber, number + 1 + winningCardsInHand);
-            return IntStream.range(number + 1, max).boxed().toList();
+        int matches() {
+            return (int) hand.stream().filter(winning::contains).count();
+        }
+    }
+
+    /**
+     * The number of cards you end up with. Instead of adding every copy that
+     * is won to the list of cards, this keeps the number of copies of every
+     * card: going through the cards in order, all copies of a card are
+     * finished when it is reached, and each of them wins one copy of the next
+     * {@code matches} cards. That is linear in the number of cards times the
+     * matches, no matter how many copies are won. The count falls back to
+     * {@link BigInteger}s when it doesn't fit in a long.
+     */
+    static BigInteger totalCards(List<Card> cards) {
+        return ParallelScratchcards.totalCards(cards.stream().sorted(Comparator.comparing(Card::number))
+                .mapToInt(Card::matches).toArray());
+    }
+
+    /**
+     * The number of cards you end up with, given the matches of every card in
+     * order. Throws an {@link ArithmeticException} when that doesn't fit in a
+     * long, see {@link ParallelScratchcards} for a version that doesn't.
+     */
+    static long totalCards(int[] matches) {
+        var copies = new long[matches.length];
+        Arrays.fill(copies, 1);
+        long total = 0;
+        for (int i = 0; i < copies.length; i++) {
+            total = Math.addExact(total, copies[i]);
+            int last = Math.min(copies.length - 1, i + matches[i]);
+            for (int next = i + 1; next <= last; next++)
+                copies[next] = Math.addExact(copies[next], copies[i]);
         }
+        return total;
     }
 
     @SuppressWarnings({ "unchecked", "rawtypes" })
@@ -155,20 +183,17 @@ public class Day04Part2 {
             System.exit(1);
         }
         List<Card> cards = (List<Card>) parser.getResult();
-        maxCardNumber = cards.size() + 1;
-
-        Map<Integer, Card> cardMap = cards.stream().collect(Collectors.toMap(c -> c.number(), c -> c));
-
-        for (int i = 0; i < cards.size(); i++) {
-            var card = cards.get(i);
-            var copies = card.copies();
-            if(copies.isEmpty()) continue;
-            for (Integer copyNumber : copies) {
-                var copy = cardMap.get(copyNumber);
-                cards.add(copy);
-            }
+        // every count is exact, the counts can double with every card and overflow a long
+        System.out.println("Number of cards in parallel: " + ParallelScratchcards.totalCards(input.lines().toList()));
+        System.out.println("Number of cards: " + totalCards(cards));
+
+        var matches = input.lines().filter(line -> !line.isBlank()).map(BitCard::parse).mapToInt(BitCard::matches)
+                .toArray();
+        System.out.println("Number of cards using bitsets: " + ParallelScratchcards.totalCards(matches));
+
+        try (var in = Files.newBufferedReader(Path.of("src/main/java/day04/input.txt"))) {
+            System.out.println("Number of cards streaming: " + ScratchcardStream.totalCards(in));
         }
-        System.out.println("Number of cards: " + cards.size());
     }
 
     private static <T> List<T> newList(T item) {
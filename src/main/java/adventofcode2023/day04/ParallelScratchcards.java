@@ -0,0 +1,56 @@
+package adventofcode2023.day04;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Counts the cards you end up with in two phases: the matches of every card
+ * are independent of each other and computed in parallel, then the copies are
+ * propagated in a single sequential pass, which is cheap.
+ *
+ * The number of copies can double with every card, so it doesn't take many
+ * cards to overflow a long. The propagation is done in longs with overflow
+ * checks, and done again with {@link BigInteger}s only when that overflows.
+ */
+final class ParallelScratchcards {
+    private ParallelScratchcards() {
+    }
+
+    static BigInteger totalCards(List<String> lines) {
+        return totalCards(matches(lines));
+    }
+
+    /**
+     * The matches of every card, parsed and counted in parallel.
+     */
+    static int[] matches(List<String> lines) {
+        var cards = lines.stream().filter(line -> !line.isBlank()).toList();
+        var matches = new int[cards.size()];
+        IntStream.range(0, matches.length).parallel()
+                .forEach(i -> matches[i] = BitCard.parse(cards.get(i)).matches());
+        return matches;
+    }
+
+    static BigInteger totalCards(int[] matches) {
+        try {
+            return BigInteger.valueOf(Day04Part2.totalCards(matches));
+        } catch (ArithmeticException e) {
+            return totalCardsExact(matches);
+        }
+    }
+
+    private static BigInteger totalCardsExact(int[] matches) {
+        var copies = new BigInteger[matches.length];
+        Arrays.fill(copies, BigInteger.ONE);
+        var total = BigInteger.ZERO;
+        for (int i = 0; i < copies.length; i++) {
+            total = total.add(copies[i]);
+            int last = Math.min(copies.length - 1, i + matches[i]);
+            for (int next = i + 1; next <= last; next++)
+                copies[next] = copies[next].add(copies[i]);
+        }
+        return total;
+    }
+}
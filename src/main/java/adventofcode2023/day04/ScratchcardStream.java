@@ -0,0 +1,130 @@
+package adventofcode2023.day04;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigInteger;
+
+/**
+ * Counts the cards you end up with while reading the cards one by one, in
+ * memory that doesn't depend on the number of cards.
+ *
+ * A card only wins copies of the next {@code matches} cards, so only the
+ * copies already won of the next few cards need to be kept. They are kept in a
+ * ring buffer that is as long as the largest number of matches so far: the
+ * head is the card that is read next.
+ *
+ * Counts are longs until a card would make one of them overflow. The ring
+ * buffer and the total then switch to {@link BigInteger}s before that card is
+ * added, so the total is always exact, like in {@link ParallelScratchcards}.
+ */
+final class ScratchcardStream {
+    private long[] pending = new long[16];
+    private long total;
+    /** The counts once they no longer fit in longs, null before that. */
+    private BigInteger[] exactPending;
+    private BigInteger exactTotal;
+    private int head;
+    private int cards;
+
+    /**
+     * Adds the next card: the original and all copies won by earlier cards
+     * each win a copy of the next {@code matches} cards.
+     */
+    void add(int matches) {
+        if (matches >= length())
+            grow(matches + 1);
+        if (exactPending == null && !fitsInLongs(matches))
+            toExact();
+        if (exactPending == null)
+            addLong(matches);
+        else
+            addExact(matches);
+        cards++;
+    }
+
+    private int length() {
+        return exactPending == null ? pending.length : exactPending.length;
+    }
+
+    /**
+     * Whether all counts still fit in a long after adding the next card.
+     */
+    private boolean fitsInLongs(int matches) {
+        if (pending[head] == Long.MAX_VALUE)
+            return false;
+        long copies = 1 + pending[head];
+        if (total > Long.MAX_VALUE - copies)
+            return false;
+        for (int i = 1; i <= matches; i++) {
+            if (pending[(head + i) & (pending.length - 1)] > Long.MAX_VALUE - copies)
+                return false;
+        }
+        return true;
+    }
+
+    private void addLong(int matches) {
+        long copies = 1 + pending[head];
+        pending[head] = 0;
+        head = (head + 1) & (pending.length - 1);
+        for (int i = 0; i < matches; i++)
+            pending[(head + i) & (pending.length - 1)] += copies;
+        total += copies;
+    }
+
+    private void addExact(int matches) {
+        var copies = exactPending[head].add(BigInteger.ONE);
+        exactPending[head] = BigInteger.ZERO;
+        head = (head + 1) & (exactPending.length - 1);
+        for (int i = 0; i < matches; i++) {
+            int slot = (head + i) & (exactPending.length - 1);
+            exactPending[slot] = exactPending[slot].add(copies);
+        }
+        exactTotal = exactTotal.add(copies);
+    }
+
+    private void toExact() {
+        exactPending = new BigInteger[pending.length];
+        for (int i = 0; i < pending.length; i++)
+            exactPending[i] = BigInteger.valueOf(pending[i]);
+        exactTotal = BigInteger.valueOf(total);
+        pending = null;
+    }
+
+    private void grow(int size) {
+        int length = Integer.highestOneBit(size - 1) << 1;
+        if (exactPending == null) {
+            var grown = new long[length];
+            for (int i = 0; i < pending.length; i++)
+                grown[i] = pending[(head + i) & (pending.length - 1)];
+            pending = grown;
+        } else {
+            var grown = new BigInteger[length];
+            for (int i = 0; i < length; i++)
+                grown[i] = i < exactPending.length ? exactPending[(head + i) & (exactPending.length - 1)]
+                        : BigInteger.ZERO;
+            exactPending = grown;
+        }
+        head = 0;
+    }
+
+    /**
+     * The number of cards so far. Copies won of cards that don't come anymore
+     * don't count, there is no such card.
+     */
+    BigInteger total() {
+        return exactPending == null ? BigInteger.valueOf(total) : exactTotal;
+    }
+
+    int cards() {
+        return cards;
+    }
+
+    static BigInteger totalCards(BufferedReader in) throws IOException {
+        var stream = new ScratchcardStream();
+        for (String line; (line = in.readLine()) != null;) {
+            if (!line.isBlank())
+                stream.add(BitCard.parse(line).matches());
+        }
+        return stream.total();
+    }
+}
@@ -0,0 +1,46 @@
+package adventofcode2023.day05;
+
+import adventofcode2023.VectorApi;
+
+/**
+ * Maps a whole batch of values through the stages of an almanac at once,
+ * instead of walking the mapping chain for every seed. Uses the Vector API when
+ * the {@code jdk.incubator.vector} module is available (run with
+ * {@code --add-modules jdk.incubator.vector}), and falls back to a plain scalar
+ * loop otherwise.
+ */
+final class BatchLookup {
+    private BatchLookup() {
+    }
+
+    /**
+     * Maps every value in place through all stages, in order.
+     */
+    static void map(RangeTable[] stages, long[] values) {
+        if (VectorApi.AVAILABLE) {
+            VectorLookup.map(stages, values);
+        } else {
+            mapScalar(stages, values);
+        }
+    }
+
+    static void mapScalar(RangeTable[] stages, long[] values) {
+        for (int i = 0; i < values.length; i++) {
+            long value = values[i];
+            for (RangeTable stage : stages) {
+                value = stage.map(value);
+            }
+            values[i] = value;
+        }
+    }
+
+    static long lowest(RangeTable[] stages, long[] seeds) {
+        var values = seeds.clone();
+        map(stages, values);
+        long lowest = Long.MAX_VALUE;
+        for (long value : values) {
+            lowest = Math.min(lowest, value);
+        }
+        return lowest;
+    }
+}
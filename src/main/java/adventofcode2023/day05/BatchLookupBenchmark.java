@@ -0,0 +1,78 @@
+package adventofcode2023.day05;
+
+import java.lang.foreign.Arena;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import adventofcode2023.VectorApi;
+
+/**
+ * Compares the scalar, the vectorized and the merge-join batch lookup on the
+ * stages of the puzzle input, using a large batch of random seeds. Run with
+ * {@code --add-modules jdk.incubator.vector} to enable the vectorized path.
+ */
+public class BatchLookupBenchmark {
+    public static void main(String[] args) throws Exception {
+        int seedCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        var input = Files.readString(Path.of("src/main/java/adventofcode2023/day05/input.txt"));
+        var stages = Day05Part1.parse(input).stages();
+
+        long maxSeed = stages[0].size() > 0 ? stages[0].end(stages[0].size() - 1) : Integer.MAX_VALUE;
+        var random = new Random(5);
+        var seeds = random.longs(seedCount, 0, maxSeed).toArray();
+
+        System.out.println("Vector API available: " + VectorApi.AVAILABLE);
+
+        var scalar = seeds.clone();
+        BatchLookup.mapScalar(stages, scalar);
+        var vector = seeds.clone();
+        BatchLookup.map(stages, vector);
+        if (!Arrays.equals(scalar, vector)) {
+            System.err.println("Scalar and batch lookup disagree");
+            System.exit(1);
+        }
+        var mergeJoin = seeds.clone();
+        MergeJoinLookup.map(stages, mergeJoin);
+        if (!Arrays.equals(scalar, mergeJoin)) {
+            System.err.println("Scalar and merge-join lookup disagree");
+            System.exit(1);
+        }
+
+        try (var arena = Arena.ofConfined()) {
+            var offHeapStages = new RangeTable[stages.length];
+            for (int i = 0; i < stages.length; i++)
+                offHeapStages[i] = OffHeapRangeTable.copyOf(stages[i], arena);
+
+            for (int round = 0; round < rounds; round++) {
+                var values = seeds.clone();
+                long start = System.nanoTime();
+                BatchLookup.mapScalar(stages, values);
+                long scalarNanos = System.nanoTime() - start;
+
+                values = seeds.clone();
+                start = System.nanoTime();
+                BatchLookup.map(stages, values);
+                long batchNanos = System.nanoTime() - start;
+
+                values = seeds.clone();
+                start = System.nanoTime();
+                MergeJoinLookup.map(stages, values);
+                long mergeJoinNanos = System.nanoTime() - start;
+
+                values = seeds.clone();
+                start = System.nanoTime();
+                MergeJoinLookup.map(offHeapStages, values);
+                long offHeapNanos = System.nanoTime() - start;
+
+                System.out.printf(
+                        "Round %2d: scalar %6.1f ns/seed, batch %6.1f ns/seed, merge-join %6.1f ns/seed, off-heap merge-join %6.1f ns/seed%n",
+                        round, scalarNanos / (double) seedCount, batchNanos / (double) seedCount,
+                        mergeJoinNanos / (double) seedCount, offHeapNanos / (double) seedCount);
+            }
+        }
+    }
+}
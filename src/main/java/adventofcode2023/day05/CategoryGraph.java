@@ -0,0 +1,290 @@
+package adventofcode2023.day05;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import adventofcode2023.day05.Day05Part2.Mapping;
+import adventofcode2023.day05.Day05Part2.MappingRange;
+
+/**
+ * The categories of an almanac and the maps between them, resolved once into a
+ * graph of indexed categories in topological order. Every map is an edge
+ * carrying the {@link RangeTable} of its ranges. Queries from one category to
+ * another are resolved into a {@link Route}, which is cached, so mapping values
+ * doesn't involve any name lookups.
+ */
+final class CategoryGraph {
+    private final String[] names;
+    private final Map<String, Integer> index;
+    private final int[][] outgoing;
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final RangeTable[] tables;
+    private final Map<Long, Route> routes = new ConcurrentHashMap<>();
+    private final Map<Long, ComposedRoute> composedRoutes = new ConcurrentHashMap<>();
+
+    private CategoryGraph(String[] names, int[][] outgoing, int[] edgeFrom, int[] edgeTo, RangeTable[] tables) {
+        this.names = names;
+        this.outgoing = outgoing;
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+        this.tables = tables;
+        this.index = new HashMap<>();
+        for (int i = 0; i < names.length; i++)
+            index.put(names[i], i);
+    }
+
+    static CategoryGraph of(Map<Mapping, List<MappingRange>> mappings) {
+        var edges = new ArrayList<Edge>();
+        for (var entry : mappings.entrySet())
+            edges.add(new Edge(entry.getKey().from(), entry.getKey().to(), table(entry.getValue())));
+        return of(edges);
+    }
+
+    /**
+     * Builds the graph straight from the tables of the maps, without the
+     * ranges of a parsed almanac.
+     */
+    static CategoryGraph of(List<Edge> edges) {
+        var categories = new ArrayList<String>();
+        var ids = new HashMap<String, Integer>();
+        for (Edge edge : edges) {
+            for (String name : List.of(edge.from(), edge.to())) {
+                if (!ids.containsKey(name)) {
+                    ids.put(name, categories.size());
+                    categories.add(name);
+                }
+            }
+        }
+
+        int n = categories.size();
+        var edgeFrom = new int[edges.size()];
+        var edgeTo = new int[edges.size()];
+        var tables = new RangeTable[edges.size()];
+        var inDegree = new int[n];
+        for (int e = 0; e < edges.size(); e++) {
+            edgeFrom[e] = ids.get(edges.get(e).from());
+            edgeTo[e] = ids.get(edges.get(e).to());
+            tables[e] = edges.get(e).table();
+            inDegree[edgeTo[e]]++;
+        }
+
+        // Kahn's algorithm, renumbering the categories in topological order
+        var rank = new int[n];
+        var queue = new ArrayDeque<Integer>();
+        for (int c = 0; c < n; c++) {
+            if (inDegree[c] == 0)
+                queue.add(c);
+        }
+        int ranked = 0;
+        while (!queue.isEmpty()) {
+            int c = queue.poll();
+            rank[c] = ranked++;
+            for (int i = 0; i < edgeFrom.length; i++) {
+                if (edgeFrom[i] == c && --inDegree[edgeTo[i]] == 0)
+                    queue.add(edgeTo[i]);
+            }
+        }
+        if (ranked != n)
+            throw new IllegalArgumentException("The maps of the almanac contain a cycle: " + edges.stream()
+                    .map(edge -> edge.from() + "-to-" + edge.to()).toList());
+
+        var names = new String[n];
+        for (int c = 0; c < n; c++)
+            names[rank[c]] = categories.get(c);
+
+        var outgoingLists = new ArrayList<List<Integer>>();
+        for (int c = 0; c < n; c++)
+            outgoingLists.add(new ArrayList<>());
+        var from = new int[edgeFrom.length];
+        var to = new int[edgeTo.length];
+        for (int i = 0; i < edgeFrom.length; i++) {
+            outgoingLists.get(rank[edgeFrom[i]]).add(i);
+            from[i] = rank[edgeFrom[i]];
+            to[i] = rank[edgeTo[i]];
+        }
+        var outgoing = new int[n][];
+        for (int c = 0; c < n; c++)
+            outgoing[c] = outgoingLists.get(c).stream().mapToInt(Integer::intValue).toArray();
+
+        return new CategoryGraph(names, outgoing, from, to, tables);
+    }
+
+    static RangeTable table(List<MappingRange> ranges) {
+        var dest = new long[ranges.size()];
+        var src = new long[ranges.size()];
+        var length = new long[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            dest[i] = ranges.get(i).destRange();
+            src[i] = ranges.get(i).srcRange();
+            length[i] = ranges.get(i).range();
+        }
+        return RangeTable.of(dest, src, length);
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    String name(int category) {
+        return names[category];
+    }
+
+    int category(String name) {
+        var category = index.get(name);
+        if (category == null)
+            throw new IllegalArgumentException("Unknown category '" + name + "', known are " + Arrays.toString(names));
+        return category;
+    }
+
+    Route route(String from, String to) {
+        return route(category(from), category(to));
+    }
+
+    /**
+     * Resolves the chain of maps that converts a number from the source
+     * category into the target category. There has to be exactly one such
+     * chain; two chains could disagree on the outcome.
+     */
+    Route route(int from, int to) {
+        return routes.computeIfAbsent(key(from, to), k -> resolve(from, to));
+    }
+
+    ComposedRoute composed(String from, String to) {
+        return composed(category(from), category(to));
+    }
+
+    /**
+     * The route between the two categories with its stages composed into a
+     * single table, kept up to date when maps on the route are replaced.
+     */
+    ComposedRoute composed(int from, int to) {
+        return composedRoutes.computeIfAbsent(key(from, to), k -> new ComposedRoute(route(from, to).stages()));
+    }
+
+    /**
+     * Replaces the ranges of the map between the two categories. Routes that
+     * use the map see the new ranges, composed routes only recompose the
+     * pieces that depend on it.
+     */
+    synchronized void replace(String from, String to, RangeTable table) {
+        int source = category(from);
+        int target = category(to);
+        int edge = -1;
+        for (int e : outgoing[source]) {
+            if (edgeTo[e] == target)
+                edge = e;
+        }
+        if (edge < 0)
+            throw new IllegalArgumentException("No map from " + from + " to " + to);
+
+        tables[edge] = table;
+        for (var entry : routes.entrySet()) {
+            var route = entry.getValue();
+            for (int stage = 0; stage < route.edges().length; stage++) {
+                if (route.edges()[stage] != edge)
+                    continue;
+                route.stages()[stage] = table;
+                var composed = composedRoutes.get(entry.getKey());
+                if (composed != null)
+                    composed.replace(stage, table);
+            }
+        }
+    }
+
+    /**
+     * The maps of the graph with their current tables.
+     */
+    List<Edge> edges() {
+        var edges = new ArrayList<Edge>();
+        for (int e = 0; e < tables.length; e++)
+            edges.add(new Edge(names[edgeFrom[e]], names[edgeTo[e]], tables[e]));
+        return edges;
+    }
+
+    private long key(int from, int to) {
+        return (long) from * names.length + to;
+    }
+
+    private Route resolve(int from, int to) {
+        // number of paths from each category to the target, capped at 2
+        var paths = new int[names.length];
+        paths[to] = 1;
+        for (int c = to - 1; c >= from; c--) {
+            for (int edge : outgoing[c])
+                paths[c] = Math.min(2, paths[c] + paths[edgeTo[edge]]);
+        }
+        if (paths[from] == 0)
+            throw new IllegalArgumentException("No maps lead from " + names[from] + " to " + names[to]);
+        if (paths[from] > 1)
+            throw new IllegalArgumentException("More than one chain of maps leads from " + names[from] + " to "
+                    + names[to]);
+
+        var categories = new ArrayList<String>();
+        var edges = new ArrayList<Integer>();
+        categories.add(names[from]);
+        for (int c = from; c != to;) {
+            for (int edge : outgoing[c]) {
+                if (paths[edgeTo[edge]] == 1) {
+                    edges.add(edge);
+                    c = edgeTo[edge];
+                    break;
+                }
+            }
+            categories.add(names[c]);
+        }
+        var stages = new RangeTable[edges.size()];
+        for (int i = 0; i < stages.length; i++)
+            stages[i] = tables[edges.get(i)];
+        return new Route(categories.toArray(String[]::new), edges.stream().mapToInt(Integer::intValue).toArray(),
+                stages);
+    }
+
+    /**
+     * A map from one category to another with the table of its ranges.
+     */
+    record Edge(String from, String to, RangeTable table) {
+    }
+
+    /**
+     * A resolved chain of maps, {@code categories} has one more entry than
+     * {@code edges} and {@code stages}.
+     */
+    record Route(String[] categories, int[] edges, RangeTable[] stages) {
+        String from() {
+            return categories[0];
+        }
+
+        String to() {
+            return categories[categories.length - 1];
+        }
+
+        long map(long value) {
+            for (RangeTable stage : stages)
+                value = stage.map(value);
+            return value;
+        }
+
+        String path(long value) {
+            var sb = new StringBuilder();
+            for (int i = 0; i < stages.length; i++) {
+                long dest = stages[i].map(value);
+                if (i > 0)
+                    sb.append(": ");
+                sb.append(categories[i]).append(' ').append(value).append(" -> ").append(dest);
+                value = dest;
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return "Route[" + String.join(" -> ", categories) + "]";
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package adventofcode2023.day05;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Keeps the stages of a {@link CategoryGraph.Route} composed into a single
+ * {@link RangeTable}, so the lowest location of a whole seed range is a walk
+ * over the pieces of one table.
+ *
+ * The compositions are kept in a segment tree over the stages: every node holds
+ * the composition of the stages below it. Replacing the ranges of one stage
+ * only recomposes the nodes on the path from that leaf to the root, and only
+ * drops the cached answers for seed ranges that actually reach the changed
+ * ranges.
+ *
+ * That bounds the work by the number of stages, not by the size of the
+ * change: each recomposed node is rebuilt in full, which costs the size of its
+ * two children, and finding the seed ranges that reach the stage composes the
+ * stages before it. A replace is {@code O(log stages)} compositions of tables
+ * as large as the composed route, however few ranges changed.
+ */
+final class ComposedRoute {
+    private final int leaves;
+    private final RangeTable[] tree;
+    private final Map<SeedInterval, Long> lowest = new HashMap<>();
+
+    private record SeedInterval(long start, long end) {
+    }
+
+    ComposedRoute(RangeTable[] stages) {
+        int leaves = 1;
+        while (leaves < stages.length)
+            leaves *= 2;
+        this.leaves = leaves;
+        this.tree = new RangeTable[2 * leaves];
+        for (int i = 0; i < leaves; i++)
+            tree[leaves + i] = i < stages.length ? stages[i] : RangeTable.IDENTITY;
+        for (int node = leaves - 1; node > 0; node--)
+            tree[node] = tree[2 * node].then(tree[2 * node + 1]);
+    }
+
+    RangeTable composed() {
+        return tree[1];
+    }
+
+    long map(long value) {
+        return composed().map(value);
+    }
+
+    /**
+     * The lowest value any of the {@code count} values starting at
+     * {@code start} maps onto. Answers are cached until a stage they depend on
+     * is replaced.
+     */
+    synchronized long lowest(long start, long count) {
+        return lowest.computeIfAbsent(new SeedInterval(start, start + count),
+                interval -> composed().lowest(interval.start(), interval.end()));
+    }
+
+    /**
+     * Replaces the ranges of a single stage, recomposing the ancestors of that
+     * stage in the tree. Every ancestor is recomposed in full, also the pieces
+     * that don't pass through the changed ranges.
+     */
+    synchronized void replace(int stage, RangeTable table) {
+        var previous = tree[leaves + stage];
+        var prefix = prefix(stage);
+        for (Iterator<SeedInterval> it = lowest.keySet().iterator(); it.hasNext();) {
+            var interval = it.next();
+            if (prefix.imageOverlaps(interval.start(), interval.end(), previous)
+                    || prefix.imageOverlaps(interval.start(), interval.end(), table))
+                it.remove();
+        }
+
+        int node = leaves + stage;
+        tree[node] = table;
+        for (node /= 2; node > 0; node /= 2)
+            tree[node] = tree[2 * node].then(tree[2 * node + 1]);
+    }
+
+    /**
+     * The composition of all stages before the given stage.
+     */
+    private RangeTable prefix(int stage) {
+        return compose(1, 0, leaves, stage);
+    }
+
+    private RangeTable compose(int node, int lo, int hi, int until) {
+        if (hi <= until)
+            return tree[node];
+        if (lo >= until)
+            return RangeTable.IDENTITY;
+        int mid = (lo + hi) / 2;
+        var left = compose(2 * node, lo, mid, until);
+        if (mid >= until)
+            return left;
+        return left.then(compose(2 * node + 1, mid, hi, until));
+    }
+}
@@ -232,6 +232,32 @@ public class Day05Part1 {
                     .min(Long::compare).get();
             return lowest;
         }
+
+        public long lowestLocationForAllSeedsBatched() {
+            var values = seeds.stream().mapToLong(Long::longValue).toArray();
+            return BatchLookup.lowest(stages(), values);
+        }
+
+        public RangeTable[] stages() {
+            var stages = new ArrayList<RangeTable>();
+            var mapping = seedsMapping;
+            while (true) {
+                var ranges = mappings.get(mapping);
+                var dest = new long[ranges.size()];
+                var src = new long[ranges.size()];
+                var length = new long[ranges.size()];
+                for (int i = 0; i < ranges.size(); i++) {
+                    dest[i] = ranges.get(i).destRange();
+                    src[i] = ranges.get(i).srcRange();
+                    length[i] = ranges.get(i).range();
+                }
+                stages.add(RangeTable.of(dest, src, length));
+                if ("location".equals(mapping.to()))
+                    break;
+                mapping = getMapping(mapping.to());
+            }
+            return stages.toArray(RangeTable[]::new);
+        }
     }
 
     record Mapping(AtomicReference<Almanac> almanac, String from, String to) {
@@ -266,7 +292,7 @@ public class Day05Part1 {
 
     record MappingRange(long destRange, long srcRange, long range) {
         boolean isInRange(long src) {
-            return src >= srcRange && src <= (srcRange + range);
+            return src >= srcRange && src < (srcRange + range);
         }
 
         long get(long src) {
@@ -391,14 +417,19 @@ public class Day05Part1 {
 
         input = Files.readString(Path.of("src/main/java/day05/input.txt"));
 
+        Almanac almanac = parse(input);
+
+        System.out.println("Lowest location is: " + almanac.lowestLocationForAllSeeds());
+        System.out.println("Lowest location (batched) is: " + almanac.lowestLocationForAllSeedsBatched());
+    }
+
+    static Almanac parse(String input) throws Exception {
         Parser parser = new SerializedParser(false).get(grammar, "Day05");
         parser.setSemantic(new Semantic());
         if (!parser.parse(input)) {
             System.err.println("Failed to read input");
             System.exit(1);
         }
-        Almanac almanac = (Almanac) parser.getResult();
-
-        System.out.println("Lowest location is: " + almanac.lowestLocationForAllSeeds());
+        return (Almanac) parser.getResult();
     }
 }
@@ -1,16 +1,25 @@
 package adventofcode2023.day05;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
+import adventofcode2023.Checkpoint;
+import adventofcode2023.Fingerprint;
+import adventofcode2023.day05.CategoryGraph.Route;
+
 import com.martijndashorst.runcc.patterns.interpreter.parsergenerator.Parser;
 import com.martijndashorst.runcc.patterns.interpreter.parsergenerator.Token;
 import com.martijndashorst.runcc.patterns.interpreter.parsergenerator.builder.SerializedParser;
@@ -46,7 +55,7 @@ import com.martijndashorst.runcc.patterns.interpreter.parsergenerator.semantics.
  * any of the initial seed numbers?
  */
 public class Day05Part2 {
-    private static final String DEMO_INPUT = """
+    static final String DEMO_INPUT = """
             seeds: 79 14 55 13
 
             seed-to-soil map:
@@ -96,19 +105,29 @@ public class Day05Part2 {
             { "MAPPINGS", "MAPPING" },
             { "MAPPINGS", "MAPPING", "MAPPINGS" },
             { "MAPPING", "NUMBER", "NUMBER", "NUMBER" },
-            { "NAME", "'seed'" },
-            { "NAME", "'soil'" },
-            { "NAME", "'fertilizer'" },
-            { "NAME", "'water'" },
-            { "NAME", "'light'" },
-            { "NAME", "'temperature'" },
-            { "NAME", "'humidity'" },
-            { "NAME", "'location'" },
+            { "NAME", "`identifier`" },
             { "NUMBER", "`integer`" },
             { Token.IGNORED, "`whitespaces`" },
     };
 
-    record Almanac(List<SeedRange> seeds, Mapping seedsMapping, Map<Mapping, List<MappingRange>> mappings) {
+    record Almanac(List<SeedRange> seeds, Mapping seedsMapping, Map<Mapping, List<MappingRange>> mappings,
+            CategoryGraph graph) {
+        /**
+         * An almanac of which the ranges of the maps are only in the tables of
+         * the graph, which may well be off heap. The mappings don't hold any
+         * ranges.
+         */
+        static Almanac of(List<SeedRange> seeds, CategoryGraph graph) {
+            var almanac = new AtomicReference<Almanac>();
+            var mappings = new LinkedHashMap<Mapping, List<MappingRange>>();
+            for (var edge : graph.edges())
+                mappings.put(new Mapping(almanac, edge.from(), edge.to()), List.of());
+            var seedsMapping = mappings.keySet().stream().filter(m -> m.from().equals("seed")).findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("No map from seed in " + mappings.keySet()));
+            almanac.set(new Almanac(seeds, seedsMapping, mappings, graph));
+            return almanac.get();
+        }
+
         public Mapping getMapping(String from) {
             return mappings.keySet().stream().filter(m -> m.from().equals(from)).findFirst().get();
         }
@@ -117,14 +136,35 @@ public class Day05Part2 {
             return seedsMapping.path(seed);
         }
 
+        public long map(String from, String to, long value) {
+            return graph.route(from, to).map(value);
+        }
+
+        /**
+         * Replaces all ranges of the map between the two categories, without
+         * reparsing the almanac.
+         */
+        public void replaceRanges(String from, String to, List<MappingRange> ranges) {
+            var mapping = mappings.keySet().stream().filter(m -> m.from().equals(from) && m.to().equals(to))
+                    .findFirst().orElseThrow(() -> new IllegalArgumentException("No map from " + from + " to " + to));
+            mappings.put(mapping, new ArrayList<>(ranges));
+            graph.replace(from, to, CategoryGraph.table(ranges));
+        }
+
+        public long lowestLocationForAllSeedsComposed() {
+            var route = graph.composed(seedsMapping.from(), "location");
+            return seeds.stream().mapToLong(s -> route.lowest(s.start(), s.count())).min().getAsLong();
+        }
+
         public long lowestLocationForAllSeeds() {
+            var route = graph.route(seedsMapping.from(), "location");
             var count = seeds.stream().flatMap(SeedRange::stream).count();
             AtomicLong start = new AtomicLong(0);
             var percentageBase = count / 100;
             var prevPerc = new AtomicLong(0);
             var lowest = seeds.parallelStream().flatMap(SeedRange::stream)
                     .peek(s -> start.incrementAndGet())
-                    .map(seedsMapping::location)
+                    .map(route::map)
                     .peek(l -> {
                         var perc = start.get() / percentageBase;
                         if(prevPerc.get() != perc) {
@@ -135,46 +175,85 @@ public class Day05Part2 {
                     .min(Long::compare).get();
             return lowest;
         }
+
+        /**
+         * Maps every seed one by one, like {@link #lowestLocationForAllSeeds()},
+         * but sequentially so the progress is just the seed range, the offset
+         * within that range and the lowest location so far. That state is
+         * saved to the checkpoint every now and then, and the search continues
+         * from the checkpoint when {@code resume} is set.
+         */
+        public long lowestLocationForAllSeeds(Checkpoint checkpoint, boolean resume) throws IOException {
+            var route = graph.route(seedsMapping.from(), "location");
+            int range = 0;
+            long offset = 0;
+            long lowest = Long.MAX_VALUE;
+            var saved = resume ? checkpoint.load() : Optional.<Properties>empty();
+            if (saved.isPresent()) {
+                range = Integer.parseInt(saved.get().getProperty("range"));
+                offset = Long.parseLong(saved.get().getProperty("offset"));
+                lowest = Long.parseLong(saved.get().getProperty("lowest"));
+                System.out.println("Resuming at seed range " + range + ", offset " + offset);
+            }
+
+            for (; range < seeds.size(); range++, offset = 0) {
+                var seed = seeds.get(range);
+                while (offset < seed.count()) {
+                    long end = Math.min(seed.count(), offset + CHUNK);
+                    for (long i = offset; i < end; i++)
+                        lowest = Math.min(lowest, route.map(seed.start() + i));
+                    offset = end;
+                    if (checkpoint.due()) {
+                        var state = new Properties();
+                        state.setProperty("range", Integer.toString(range));
+                        state.setProperty("offset", Long.toString(offset));
+                        state.setProperty("lowest", Long.toString(lowest));
+                        checkpoint.save(state);
+                        System.out.println("Progress: seed range " + range + ", " + offset + " of " + seed.count());
+                    }
+                }
+            }
+            checkpoint.delete();
+            return lowest;
+        }
     }
 
+    /**
+     * The number of seeds mapped between looking at the checkpoint.
+     */
+    private static final long CHUNK = 1 << 20;
+
     record SeedRange(long start, long count) {
         public Stream<Long> stream() {
             return LongStream.range(start, start + count).mapToObj(Long::valueOf);
         }
     }
 
-    record Mapping(AtomicReference<Almanac> almanac, String from, String to) {
-        public long location(long src) {
-            Almanac almanac = almanac().get();
-            if (!"location".equals(to())) {
-                var destValue = getDestValue(src);
-                var location = almanac.getMapping(to()).location(destValue);
-                return location;
-            }
-            return getDestValue(src);
+    record Mapping(AtomicReference<Almanac> almanac, String from, String to, AtomicReference<Route> toLocation) {
+        Mapping(AtomicReference<Almanac> almanac, String from, String to) {
+            this(almanac, from, to, new AtomicReference<>());
         }
 
-        public String path(long seed) {
-            long destValue = getDestValue(seed);
-
-            if (to().equals("location"))
-                return from() + " " + seed + " -> " + destValue;
-
-            var destMapping = almanac().get().getMapping(to());
-            return from() + " " + seed + " -> " + destValue + ": " + destMapping.path(destValue);
+        public long location(long src) {
+            return route().map(src);
         }
 
-        private List<MappingRange> ranges() {
-            return almanac().get().mappings().get(this);
+        public String path(long seed) {
+            return route().path(seed);
         }
 
-        private long getDestValue(long src) {
-            for (MappingRange range : ranges()) {
-                if (range.isInRange(src)) {
-                    return range.get(src);
-                }
+        /**
+         * The route from this mapping to the locations, resolved on first use.
+         * Replacing maps updates the stages of the route in place, so it
+         * doesn't go stale.
+         */
+        Route route() {
+            var route = toLocation.get();
+            if (route == null) {
+                route = almanac().get().graph().route(from(), "location");
+                toLocation.set(route);
             }
-            return src;
+            return route;
         }
 
         @Override
@@ -202,7 +281,7 @@ public class Day05Part2 {
         public Object ALMANAC(Object SEEDS, Object MAP) {
             var seedsMapping = ((Map<Mapping, List<?>>) MAP).keySet().stream().filter(m -> m.from().equals("seed"))
                     .findFirst().get();
-            var almanac = new Almanac((List<SeedRange>) SEEDS, seedsMapping, (Map) MAP);
+            var almanac = new Almanac((List<SeedRange>) SEEDS, seedsMapping, (Map) MAP, CategoryGraph.of((Map) MAP));
             almanac.mappings().keySet().forEach(m -> m.almanac().set(almanac));
             return almanac;
         }
@@ -304,14 +383,7 @@ public class Day05Part2 {
                     Long.valueOf(RANGE.toString()));
         }
 
-        // { "NAME", "'seed'" },
-        // { "NAME", "'soil'" },
-        // { "NAME", "'fertilizer'" },
-        // { "NAME", "'water'" },
-        // { "NAME", "'light'" },
-        // { "NAME", "'temperature'" },
-        // { "NAME", "'humidity'" },
-        // { "NAME", "'location'" },
+        // { "NAME", "`identifier`" },
         public Object NAME(Object VALUE) {
             return VALUE.toString();
         }
@@ -322,19 +394,78 @@ public class Day05Part2 {
         }
     }
 
+    /**
+     * Where {@code --mapped} keeps the tables of the maps between runs. They're
+     * written again when the input changes.
+     */
+    private static final Path TABLES = Path.of("day05.tables");
+
+    /**
+     * Runs on the parsed almanac by default. With {@code --off-heap} the tables
+     * are moved off heap after parsing, with {@code --mapped} they're
+     * memory-mapped from {@link #TABLES} and the maps aren't parsed at all
+     * once the tables are there. Both need {@code --enable-preview}.
+     */
     public static void main(String[] args) throws Exception {
         var input = DEMO_INPUT;
 
         input = Files.readString(Path.of("src/main/java/day05/input.txt"));
 
+        var arguments = Arrays.asList(args);
+        Almanac almanac;
+        if (arguments.contains("--mapped")) {
+            almanac = mapped(input, TABLES);
+        } else {
+            almanac = parse(input);
+            if (arguments.contains("--off-heap")) {
+                OffHeapRangeTable.moveOffHeap(almanac.graph());
+                almanac = Almanac.of(almanac.seeds(), almanac.graph());
+            }
+        }
+
+        System.out.println("Lowest location is: " + almanac.lowestLocationForAllSeedsComposed());
+
+        if (arguments.contains("--brute-force") || Checkpoint.resume(args)) {
+            var checkpoint = new Checkpoint(Path.of("day05.checkpoint"), Duration.ofMinutes(1),
+                    Fingerprint.of(input));
+            System.out.println("Lowest location by brute force is: "
+                    + almanac.lowestLocationForAllSeeds(checkpoint, Checkpoint.resume(args)));
+        }
+    }
+
+    static Almanac parse(String input) throws Exception {
         Parser parser = new SerializedParser(false).get(grammar, "Day05");
         parser.setSemantic(new Semantic());
-        if (!parser.parse(input)) {
-            System.err.println("Failed to read input");
-            System.exit(1);
-        }
-        Almanac almanac = (Almanac) parser.getResult();
+        if (!parser.parse(input))
+            throw new IllegalArgumentException("Failed to read input");
+        return (Almanac) parser.getResult();
+    }
+
+    /**
+     * Builds the almanac on the memory-mapped tables in the directory. The
+     * input is only parsed, and the tables written, when the directory doesn't
+     * hold complete tables of this very input; the parsed ranges are garbage by
+     * the time the tables are mapped.
+     */
+    static Almanac mapped(String input, Path tables) throws Exception {
+        var fingerprint = Fingerprint.of(input);
+        if (!OffHeapRangeTable.isCurrent(tables, fingerprint))
+            OffHeapRangeTable.writeAll(parse(input).graph(), tables, fingerprint);
+        return Almanac.of(seeds(input), OffHeapRangeTable.mapAll(tables));
+    }
 
-        System.out.println("Lowest location is: " + almanac.lowestLocationForAllSeeds());
+    /**
+     * Reads the seed ranges from the {@code seeds:} line, without parsing the
+     * maps.
+     */
+    static List<SeedRange> seeds(String input) {
+        var line = input.lines().map(String::strip).filter(l -> l.startsWith("seeds:")).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No seeds in the almanac"));
+        var numbers = Arrays.stream(line.substring("seeds:".length()).strip().split("\\s+"))
+                .mapToLong(Long::parseLong).toArray();
+        var seeds = new ArrayList<SeedRange>();
+        for (int i = 0; i + 1 < numbers.length; i += 2)
+            seeds.add(new SeedRange(numbers[i], numbers[i + 1]));
+        return seeds;
     }
 }
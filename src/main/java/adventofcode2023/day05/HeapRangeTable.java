@@ -0,0 +1,120 @@
+package adventofcode2023.day05;
+
+import java.util.Arrays;
+
+/**
+ * A {@link RangeTable} stored as parallel primitive arrays on the heap.
+ */
+final class HeapRangeTable implements RangeTable {
+    private final long[] start;
+    private final long[] end;
+    private final long[] offset;
+
+    HeapRangeTable(long[] start, long[] end, long[] offset) {
+        this.start = start;
+        this.end = end;
+        this.offset = offset;
+    }
+
+    static HeapRangeTable of(long[] dest, long[] src, long[] length) {
+        var order = new Integer[src.length];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(src[a], src[b]));
+
+        var start = new long[src.length];
+        var end = new long[src.length];
+        var offset = new long[src.length];
+        for (int i = 0; i < order.length; i++) {
+            int r = order[i];
+            start[i] = src[r];
+            end[i] = src[r] + length[r];
+            offset[i] = dest[r] - src[r];
+        }
+        return new HeapRangeTable(start, end, offset);
+    }
+
+    @Override
+    public int size() {
+        return start.length;
+    }
+
+    @Override
+    public long start(int range) {
+        return start[range];
+    }
+
+    @Override
+    public long end(int range) {
+        return end[range];
+    }
+
+    @Override
+    public long offset(int range) {
+        return offset[range];
+    }
+
+    @Override
+    public String toString() {
+        return RangeTable.toString(this);
+    }
+
+    /**
+     * Collects the pieces of a composed table in ascending order.
+     */
+    static final class Segments {
+        private long[] start;
+        private long[] end;
+        private long[] offset;
+        private int size;
+
+        Segments(int capacity) {
+            start = new long[capacity];
+            end = new long[capacity];
+            offset = new long[capacity];
+        }
+
+        /**
+         * Adds the pieces of {@code [from, to)} shifted by {@code shift} and then
+         * mapped by {@code next}.
+         */
+        void through(RangeTable next, long from, long to, long shift) {
+            long cursor = from + shift;
+            long limit = to + shift;
+            for (int i = next.first(cursor); i < next.size() && next.start(i) < limit; i++) {
+                if (cursor < next.start(i)) {
+                    add(cursor - shift, next.start(i) - shift, shift);
+                    cursor = next.start(i);
+                }
+                long pieceEnd = Math.min(next.end(i), limit);
+                add(cursor - shift, pieceEnd - shift, shift + next.offset(i));
+                cursor = pieceEnd;
+            }
+            if (cursor < limit)
+                add(cursor - shift, limit - shift, shift);
+        }
+
+        private void add(long from, long to, long shift) {
+            if (shift == 0 || from >= to)
+                return;
+            if (size > 0 && end[size - 1] == from && offset[size - 1] == shift) {
+                end[size - 1] = to;
+                return;
+            }
+            if (size == start.length) {
+                start = Arrays.copyOf(start, size * 2);
+                end = Arrays.copyOf(end, size * 2);
+                offset = Arrays.copyOf(offset, size * 2);
+            }
+            start[size] = from;
+            end[size] = to;
+            offset[size] = shift;
+            size++;
+        }
+
+        HeapRangeTable toTable() {
+            return new HeapRangeTable(Arrays.copyOf(start, size), Arrays.copyOf(end, size),
+                    Arrays.copyOf(offset, size));
+        }
+    }
+}
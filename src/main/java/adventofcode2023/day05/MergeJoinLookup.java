@@ -0,0 +1,138 @@
+package adventofcode2023.day05;
+
+import java.util.Arrays;
+
+/**
+ * Maps a batch of values through the stages of an almanac by sorting the batch
+ * and sweeping it against each stage's sorted {@link RangeTable}, so both the
+ * values and the ranges are read sequentially instead of searching the ranges
+ * for every single value. The permutation is carried along so results come
+ * back in input order.
+ */
+final class MergeJoinLookup {
+    private static final int RADIX_BITS = 16;
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    private MergeJoinLookup() {
+    }
+
+    /**
+     * Maps every value in place through all stages, in order.
+     */
+    static void map(RangeTable[] stages, long[] values) {
+        int n = values.length;
+        var keys = values.clone();
+        var order = new int[n];
+        for (int i = 0; i < n; i++)
+            order[i] = i;
+
+        var sorter = new Sorter(n);
+        sorter.sort(keys, order);
+        for (int s = 0; s < stages.length; s++) {
+            sweep(stages[s], keys);
+            if (s < stages.length - 1)
+                sorter.sort(keys, order);
+        }
+
+        for (int i = 0; i < n; i++)
+            values[order[i]] = keys[i];
+    }
+
+    /**
+     * Maps the ascending keys through the table, advancing through the table's
+     * ranges at the same pace as through the keys.
+     */
+    static void sweep(RangeTable table, long[] keys) {
+        int r = 0;
+        int ranges = table.size();
+        for (int i = 0; i < keys.length; i++) {
+            long key = keys[i];
+            while (r < ranges && table.end(r) <= key)
+                r++;
+            if (r == ranges)
+                break;
+            if (table.start(r) <= key)
+                keys[i] = key + table.offset(r);
+        }
+    }
+
+    /**
+     * Stable LSD radix sort of the keys, applying the same permutation to the
+     * order array. Digits that are equal for all keys are skipped, so for
+     * almanac values (well below 2^48) only the lower passes do any work.
+     * Keys that are already in order are left alone.
+     */
+    private static final class Sorter {
+        private final long[] keyBuffer;
+        private final int[] orderBuffer;
+        private final int[] counts = new int[RADIX];
+
+        Sorter(int n) {
+            keyBuffer = new long[n];
+            orderBuffer = new int[n];
+        }
+
+        void sort(long[] keys, int[] order) {
+            if (isSorted(keys))
+                return;
+
+            long[] srcKeys = keys;
+            int[] srcOrder = order;
+            long[] dstKeys = keyBuffer;
+            int[] dstOrder = orderBuffer;
+
+            for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+                if (!countDigits(srcKeys, shift))
+                    continue;
+
+                int sum = 0;
+                for (int d = 0; d < RADIX; d++) {
+                    int count = counts[d];
+                    counts[d] = sum;
+                    sum += count;
+                }
+                for (int i = 0; i < srcKeys.length; i++) {
+                    int pos = counts[digit(srcKeys[i], shift)]++;
+                    dstKeys[pos] = srcKeys[i];
+                    dstOrder[pos] = srcOrder[i];
+                }
+
+                long[] tmpKeys = srcKeys;
+                srcKeys = dstKeys;
+                dstKeys = tmpKeys;
+                int[] tmpOrder = srcOrder;
+                srcOrder = dstOrder;
+                dstOrder = tmpOrder;
+            }
+
+            if (srcKeys != keys) {
+                System.arraycopy(srcKeys, 0, keys, 0, keys.length);
+                System.arraycopy(srcOrder, 0, order, 0, order.length);
+            }
+        }
+
+        /**
+         * Fills the digit histogram, returns false when all keys share the same
+         * digit and the pass can be skipped.
+         */
+        private boolean countDigits(long[] keys, int shift) {
+            Arrays.fill(counts, 0);
+            for (long key : keys)
+                counts[digit(key, shift)]++;
+            return keys.length > 0 && counts[digit(keys[0], shift)] != keys.length;
+        }
+
+        private static int digit(long key, int shift) {
+            // flip the sign bit so negative keys sort before positive ones
+            return (int) (((key ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1));
+        }
+
+        private static boolean isSorted(long[] keys) {
+            for (int i = 1; i < keys.length; i++) {
+                if (keys[i - 1] > keys[i])
+                    return false;
+            }
+            return true;
+        }
+    }
+}
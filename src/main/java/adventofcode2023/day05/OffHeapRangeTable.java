@@ -0,0 +1,238 @@
+package adventofcode2023.day05;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import adventofcode2023.day05.CategoryGraph.Edge;
+
+/**
+ * A {@link RangeTable} stored outside of the heap in a single memory segment,
+ * so even tables with tens of millions of ranges are just one object to the
+ * garbage collector.
+ *
+ * The segment holds the number of ranges followed by the start, end and offset
+ * columns, all little endian longs. This is also the layout of the files
+ * written by {@link #write(RangeTable, Path)}, which can be memory-mapped
+ * directly with {@link #map(Path, Arena)}.
+ *
+ * The table is only valid as long as the arena it was created in is open.
+ *
+ * This is the only class besides the benchmark that uses the foreign memory
+ * API, a preview API in Java 21, so only the off-heap options of
+ * {@link Day05Part2} need {@code --enable-preview}.
+ */
+final class OffHeapRangeTable implements RangeTable {
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final long HEADER = Long.BYTES;
+    private static final String TABLE = ".table";
+    private static final String MANIFEST = "tables.properties";
+    private static final String FINGERPRINT = "fingerprint";
+
+    private final MemorySegment segment;
+    private final int size;
+    private final long endColumn;
+    private final long offsetColumn;
+
+    private OffHeapRangeTable(MemorySegment segment) {
+        long count = segment.get(LONG, 0);
+        if (count < 0 || count > Integer.MAX_VALUE || segment.byteSize() < bytes(count))
+            throw new IllegalArgumentException("Not a range table segment, size " + segment.byteSize()
+                    + " bytes for " + count + " ranges");
+        this.segment = segment;
+        this.size = (int) count;
+        this.endColumn = HEADER + count * Long.BYTES;
+        this.offsetColumn = HEADER + 2 * count * Long.BYTES;
+    }
+
+    private static long bytes(long count) {
+        return HEADER + 3 * count * Long.BYTES;
+    }
+
+    /**
+     * Copies the ranges of the table into a new segment allocated in the arena.
+     */
+    static OffHeapRangeTable copyOf(RangeTable table, Arena arena) {
+        var segment = arena.allocate(bytes(table.size()), Long.BYTES);
+        fill(segment, table);
+        return new OffHeapRangeTable(segment);
+    }
+
+    /**
+     * Memory-maps a table previously written with {@link #write(RangeTable, Path)}.
+     */
+    static OffHeapRangeTable map(Path file, Arena arena) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new OffHeapRangeTable(channel.map(MapMode.READ_ONLY, 0, channel.size(), arena));
+        }
+    }
+
+    static void write(RangeTable table, Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                var arena = Arena.ofConfined()) {
+            var segment = channel.map(MapMode.READ_WRITE, 0, bytes(table.size()), arena);
+            fill(segment, table);
+            segment.force();
+        }
+    }
+
+    /**
+     * Copies the tables of every map of the graph into an automatic arena, so
+     * the lookup and interval engines work on off-heap tables from then on. The
+     * segments are freed when the tables are no longer used.
+     */
+    static void moveOffHeap(CategoryGraph graph) {
+        var arena = Arena.ofAuto();
+        for (Edge edge : graph.edges()) {
+            if (!(edge.table() instanceof OffHeapRangeTable))
+                graph.replace(edge.from(), edge.to(), copyOf(edge.table(), arena));
+        }
+    }
+
+    /**
+     * Writes the table of every map of the graph to a file named after the
+     * map, like {@code seed-to-soil.table}, with a manifest of the fingerprint
+     * of the input and the number of ranges of every table. The files are
+     * written to a temporary directory next to {@code directory}, which is
+     * renamed into place once complete and replaces the previous tables.
+     */
+    static void writeAll(CategoryGraph graph, Path directory, String fingerprint) throws IOException {
+        var parent = directory.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        var temporary = Files.createTempDirectory(parent, directory.getFileName() + ".");
+        var manifest = new Properties();
+        manifest.setProperty(FINGERPRINT, fingerprint);
+        for (Edge edge : graph.edges()) {
+            var name = edge.from() + "-to-" + edge.to();
+            write(edge.table(), temporary.resolve(name + TABLE));
+            manifest.setProperty(name, Integer.toString(edge.table().size()));
+        }
+        try (var out = Files.newOutputStream(temporary.resolve(MANIFEST))) {
+            manifest.store(out, null);
+        }
+        delete(directory);
+        Files.move(temporary, directory, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Whether the directory holds the complete tables of the input with the
+     * fingerprint: the manifest is there and has the fingerprint, and every
+     * table in it has the listed number of ranges.
+     */
+    static boolean isCurrent(Path directory, String fingerprint) throws IOException {
+        var manifest = manifest(directory);
+        if (manifest.isEmpty() || !fingerprint.equals(manifest.get().getProperty(FINGERPRINT)))
+            return false;
+        for (String name : manifest.get().stringPropertyNames()) {
+            if (name.equals(FINGERPRINT))
+                continue;
+            var file = directory.resolve(name + TABLE);
+            long count = Long.parseLong(manifest.get().getProperty(name));
+            if (!Files.isRegularFile(file) || Files.size(file) != bytes(count))
+                return false;
+            try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                var header = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                if (channel.read(header, 0) != Long.BYTES || header.getLong(0) != count)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds a graph from the tables written by
+     * {@link #writeAll(CategoryGraph, Path, String)}, memory-mapping every table
+     * in the manifest in an automatic arena. The ranges are never read onto the
+     * heap.
+     */
+    static CategoryGraph mapAll(Path directory) throws IOException {
+        var manifest = manifest(directory)
+                .orElseThrow(() -> new IllegalArgumentException("No tables in " + directory));
+        var arena = Arena.ofAuto();
+        var edges = new ArrayList<Edge>();
+        for (String name : new TreeSet<>(manifest.stringPropertyNames())) {
+            if (name.equals(FINGERPRINT))
+                continue;
+            var categories = name.split("-to-");
+            if (categories.length != 2)
+                throw new IllegalArgumentException("Not a table of a map: " + name);
+            var table = map(directory.resolve(name + TABLE), arena);
+            if (table.size() != Integer.parseInt(manifest.getProperty(name)))
+                throw new IllegalStateException("The table " + name + " in " + directory + " has " + table.size()
+                        + " ranges instead of " + manifest.getProperty(name));
+            edges.add(new Edge(categories[0], categories[1], table));
+        }
+        return CategoryGraph.of(edges);
+    }
+
+    private static Optional<Properties> manifest(Path directory) throws IOException {
+        var file = directory.resolve(MANIFEST);
+        if (!Files.isRegularFile(file))
+            return Optional.empty();
+        var manifest = new Properties();
+        try (var in = Files.newInputStream(file)) {
+            manifest.load(in);
+        }
+        return Optional.of(manifest);
+    }
+
+    private static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory))
+            return;
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(file);
+        }
+    }
+
+    private static void fill(MemorySegment segment, RangeTable table) {
+        int count = table.size();
+        segment.set(LONG, 0, count);
+        for (int i = 0; i < count; i++) {
+            segment.set(LONG, HEADER + (long) i * Long.BYTES, table.start(i));
+            segment.set(LONG, HEADER + ((long) count + i) * Long.BYTES, table.end(i));
+            segment.set(LONG, HEADER + (2L * count + i) * Long.BYTES, table.offset(i));
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long start(int range) {
+        return segment.get(LONG, HEADER + (long) range * Long.BYTES);
+    }
+
+    @Override
+    public long end(int range) {
+        return segment.get(LONG, endColumn + (long) range * Long.BYTES);
+    }
+
+    @Override
+    public long offset(int range) {
+        return segment.get(LONG, offsetColumn + (long) range * Long.BYTES);
+    }
+
+    @Override
+    public String toString() {
+        return size > 100 ? "OffHeapRangeTable[" + size + " ranges]" : RangeTable.toString(this);
+    }
+}
@@ -0,0 +1,134 @@
+package adventofcode2023.day05;
+
+/**
+ * The ranges of a single almanac map, sorted on the start of the source range
+ * and not overlapping. Each range maps {@code [start, end)} onto
+ * {@code [start + offset, end + offset)}, any value outside of the ranges maps
+ * onto itself.
+ *
+ * The ranges are either kept in primitive arrays on the heap
+ * ({@link HeapRangeTable}) or in a memory segment outside of the heap
+ * ({@link OffHeapRangeTable}), the lookup and composition algorithms work on
+ * both.
+ */
+sealed interface RangeTable permits HeapRangeTable, OffHeapRangeTable {
+    RangeTable IDENTITY = new HeapRangeTable(new long[0], new long[0], new long[0]);
+
+    /**
+     * Creates a table from the three columns of an almanac map: destination
+     * range start, source range start and range length.
+     */
+    static RangeTable of(long[] dest, long[] src, long[] length) {
+        return HeapRangeTable.of(dest, src, length);
+    }
+
+    int size();
+
+    long start(int range);
+
+    long end(int range);
+
+    long offset(int range);
+
+    default long map(long src) {
+        int i = first(src);
+        if (i < size() && start(i) <= src)
+            return src + offset(i);
+        return src;
+    }
+
+    /**
+     * Index of the first range that ends after the value, or {@link #size()}
+     * when there is none.
+     */
+    default int first(long value) {
+        int lo = 0;
+        int hi = size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (end(mid) <= value)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Composes this table with the next stage into a single table that maps
+     * values as if they went through this table first and then through
+     * {@code next}. Pieces that end up mapping onto themselves are left out,
+     * adjacent pieces with the same offset are merged.
+     */
+    default RangeTable then(RangeTable next) {
+        var segments = new HeapRangeTable.Segments(size() + next.size() + 1);
+        long cursor = Long.MIN_VALUE;
+        for (int i = 0; i < size(); i++) {
+            if (cursor < start(i))
+                segments.through(next, cursor, start(i), 0);
+            segments.through(next, start(i), end(i), offset(i));
+            cursor = end(i);
+        }
+        if (cursor < Long.MAX_VALUE)
+            segments.through(next, cursor, Long.MAX_VALUE, 0);
+        return segments.toTable();
+    }
+
+    /**
+     * The lowest value that any value in {@code [from, to)} maps onto.
+     */
+    default long lowest(long from, long to) {
+        long lowest = Long.MAX_VALUE;
+        long cursor = from;
+        for (int i = first(from); i < size() && start(i) < to && cursor < to; i++) {
+            if (cursor < start(i)) {
+                lowest = Math.min(lowest, cursor);
+                cursor = start(i);
+            }
+            lowest = Math.min(lowest, cursor + offset(i));
+            cursor = end(i);
+        }
+        if (cursor < to)
+            lowest = Math.min(lowest, cursor);
+        return lowest;
+    }
+
+    /**
+     * Whether any value in {@code [from, to)}, after being mapped by this table,
+     * falls inside one of the ranges of {@code other}.
+     */
+    default boolean imageOverlaps(long from, long to, RangeTable other) {
+        long cursor = from;
+        for (int i = first(from); i < size() && start(i) < to && cursor < to; i++) {
+            if (cursor < start(i)) {
+                if (other.overlaps(cursor, start(i)))
+                    return true;
+                cursor = start(i);
+            }
+            long pieceEnd = Math.min(end(i), to);
+            if (other.overlaps(cursor + offset(i), pieceEnd + offset(i)))
+                return true;
+            cursor = pieceEnd;
+        }
+        return cursor < to && other.overlaps(cursor, to);
+    }
+
+    /**
+     * Whether any range of this table overlaps {@code [from, to)}.
+     */
+    default boolean overlaps(long from, long to) {
+        int i = first(from);
+        return i < size() && start(i) < to;
+    }
+
+    static String toString(RangeTable table) {
+        var sb = new StringBuilder(table.getClass().getSimpleName()).append('[');
+        for (int i = 0; i < table.size(); i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append('[').append(table.start(i)).append(',').append(table.end(i)).append(")")
+                    .append(table.offset(i) < 0 ? "" : "+").append(table.offset(i));
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,54 @@
+package adventofcode2023.day05;
+
+import adventofcode2023.VectorApi;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Maps values through a chain of {@link RangeTable}s several lanes at a time,
+ * for {@link BatchLookup} when {@link VectorApi#AVAILABLE}.
+ */
+final class VectorLookup {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    private VectorLookup() {
+    }
+
+    static void map(RangeTable[] stages, long[] values) {
+        int i = 0;
+        int upperBound = SPECIES.loopBound(values.length);
+        for (; i < upperBound; i += SPECIES.length()) {
+            var v = LongVector.fromArray(SPECIES, values, i);
+            for (RangeTable stage : stages) {
+                v = map(stage, v, SPECIES.maskAll(true));
+            }
+            v.intoArray(values, i);
+        }
+        if (i < values.length) {
+            var tail = SPECIES.indexInRange(i, values.length);
+            var v = LongVector.fromArray(SPECIES, values, i, tail);
+            for (RangeTable stage : stages) {
+                v = map(stage, v, tail);
+            }
+            v.intoArray(values, i, tail);
+        }
+    }
+
+    private static LongVector map(RangeTable table, LongVector v, VectorMask<Long> lanes) {
+        var result = v;
+        var unmapped = lanes;
+        for (int r = 0; r < table.size(); r++) {
+            var hit = v.compare(VectorOperators.GE, table.start(r))
+                    .and(v.compare(VectorOperators.LT, table.end(r)))
+                    .and(unmapped);
+            result = result.add(table.offset(r), hit);
+            unmapped = unmapped.andNot(hit);
+            if (!unmapped.anyTrue())
+                break;
+        }
+        return result;
+    }
+}
@@ -2,11 +2,7 @@ package adventofcode2023.day07;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.EnumSet;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 
 /**
  * --- Part Two ---
@@ -81,133 +77,15 @@ public class Day07Part2 {
         }
     }
 
-    enum Type {
-        FiveOfAKind {
-            @Override
-            public boolean matches(List<Card> cards) {
-                Optional<Card> firstNonJ = cards.stream().filter(c -> c != Card.J).findFirst();
-                if (firstNonJ.isEmpty())
-                    return true; // all Js
-
-                return cards.stream().allMatch(c -> c == firstNonJ.get() || Card.J == c);
-            }
-        },
-        FourOfAKind {
-            @Override
-            public boolean matches(List<Card> cards) {
-                boolean fourAreEqual = false;
-                int index = 0;
-                while (!fourAreEqual && index < cards.size()) {
-                    Card base = cards.get(index);
-                    fourAreEqual = cards.stream().filter(c -> base == c || Card.J == c).count() == 4;
-                    index++;
-                }
-                return fourAreEqual;
-            }
-        },
-        FullHouse {
-            @Override
-            public boolean matches(List<Card> cards) {
-                Map<Card, Integer> counts = new HashMap<>();
-                for (Card card : cards) {
-                    if (counts.get(card) == null)
-                        counts.put(card, 0);
-                    counts.put(card, counts.get(card) + 1);
-                }
-
-                Integer jsPresent = counts.get(Card.J);
-                jsPresent = jsPresent == null ? 0 : jsPresent;
-
-                boolean hasPair = false;
-                boolean hasThree = false;
-                for (Integer count : counts.entrySet().stream().filter(e -> e.getKey() != Card.J).map(e -> e.getValue())
-                        .toList()) {
-                    hasPair = hasPair || count == 2;
-                    hasThree = hasThree || count == 3;
-                }
-                if (hasPair && hasThree)
-                    return true;
-
-                if (hasPair && jsPresent == 2)
-                    return true;
-
-                var doublePair = counts.values().stream().filter(c -> c == 2).count() == 2;
-                return (doublePair && jsPresent == 1);
-            }
-        },
-        ThreeOfAKind {
-            @Override
-            public boolean matches(List<Card> cards) {
-                boolean threeAreEqual = false;
-                int index = 0;
-                while (!threeAreEqual && index < cards.size()) {
-                    Card base = cards.get(index);
-                    threeAreEqual = (cards.stream().filter(c -> c == base || c == Card.J).count() == 3);
-                    index++;
-                }
-                return threeAreEqual;
-            }
-        },
-        TwoPair {
-            @Override
-            public boolean matches(List<Card> cards) {
-                boolean twoPair = false;
-                int index = 0;
-                Optional<Card> pair1 = Optional.empty();
-                Optional<Card> pair2 = Optional.empty();
-                while (!twoPair && index < cards.size()) {
-                    Card card = cards.get(index++);
-                    var cardIsPartOfPair = cards.stream().filter(card::equals).count() == 2;
-                    if (cardIsPartOfPair) {
-                        if (pair1.isEmpty()) {
-                            pair1 = Optional.of(card);
-                            continue;
-                        } else if (pair1.get() == card) {
-                            continue;
-                        }
-                        pair2 = Optional.of(card);
-                    }
-                    twoPair = pair1.isPresent() && pair2.isPresent();
-                }
-                return twoPair;
-            }
-        },
-        OnePair {
-            @Override
-            public boolean matches(List<Card> cards) {
-                boolean twoAreEqual = false;
-                int index = 0;
-                while (!twoAreEqual && index < cards.size()) {
-                    Card base = cards.get(index);
-                    twoAreEqual = (cards.stream().filter(c -> c == base || c == Card.J).count() == 2);
-                    index++;
-                }
-                return twoAreEqual;
-            }
-        },
-        HighCard {
-            @Override
-            public boolean matches(List<Card> cards) {
-                return true;
-            }
-        };
-
-        public int strength() {
-            return values().length - ordinal();
-        }
-
-        public abstract boolean matches(List<Card> cards);
-    }
-
     static class Hand implements Comparable<Hand> {
         private List<Card> cards;
         private long bid;
-        private Type type;
+        private HandType type;
 
         Hand(List<Card> cards, long bid) {
             this.cards = cards;
             this.bid = bid;
-            this.type = EnumSet.allOf(Type.class).stream().filter(t -> t.matches(cards)).findFirst().get();
+            this.type = HandType.of(HandRanking.cards(ranks()), true);
         }
 
         public List<Card> cards() {
@@ -218,7 +96,7 @@ public class Day07Part2 {
             return bid;
         }
 
-        public Type type() {
+        public HandType type() {
             return type;
         }
 
@@ -226,6 +104,28 @@ public class Day07Part2 {
             return type.strength();
         }
 
+        /**
+         * The hand packed into a {@link HandRanking} key. Cards are declared
+         * from strongest to weakest, so the rank is the reversed ordinal.
+         */
+        public int key() {
+            return HandRanking.key(strength(), ranks());
+        }
+
+        /**
+         * The index of the hand in the {@link HandTable}.
+         */
+        public int code() {
+            return HandTable.code(ranks());
+        }
+
+        private int[] ranks() {
+            var ranks = new int[cards.size()];
+            for (int i = 0; i < ranks.length; i++)
+                ranks[i] = Card.values().length - 1 - cards.get(i).ordinal();
+            return ranks;
+        }
+
         public static Hand valueOf(String line) {
             String cardsText = line.substring(0, 5);
             String bid = line.substring(6);
@@ -273,10 +173,26 @@ public class Day07Part2 {
 
         var rankedHands = input.map(Hand::valueOf).sorted().toList();
         rankedHands.forEach(System.out::println);
-        var sum = 0;
+        long sum = 0;
         for (int i = 0; i < rankedHands.size(); i++) {
             sum += (i + 1) * rankedHands.get(i).bid();
         }
         System.out.println("Sum of winnings: " + sum);
+
+        var keys = rankedHands.stream().mapToInt(hand -> HandTable.key(hand.code(), true)).toArray();
+        var bids = rankedHands.stream().mapToLong(Hand::bid).toArray();
+        System.out.println("Sum of winnings using packed keys: " + HandRanking.totalWinnings(keys, bids));
+
+        var columns = HandColumns.read(Path.of("src/main/java/day07/input.txt"), true);
+        System.out.println("Sum of winnings reading bytes: " + columns.totalWinnings());
+        System.out.println("Sum of winnings ranking in parallel: "
+                + HandRanking.totalWinningsParallel(columns.keys(), columns.bids()));
+
+        var online = new OnlineRanking();
+        var onlineKeys = columns.keys();
+        var onlineBids = columns.bids();
+        for (int i = 0; i < onlineKeys.length; i++)
+            online.insert(onlineKeys[i], onlineBids[i]);
+        System.out.println("Sum of winnings ranking online: " + online.totalWinnings());
     }
 }
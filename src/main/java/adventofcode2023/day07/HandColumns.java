@@ -0,0 +1,161 @@
+package adventofcode2023.day07;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A file of hands read straight into two columns: the {@link HandRanking} key
+ * of every hand and its bid. The input is read as bytes in blocks; card bytes
+ * go through a 256 entry table to their rank, the ranks are accumulated into
+ * the {@link HandTable} code of the hand and the bid into a long, so the key is
+ * a table lookup and no objects are created per line.
+ *
+ * A line is five cards, one or more spaces and the bid. Spaces around the line,
+ * blank lines and both LF and CRLF line ends are accepted; anything else is
+ * rejected with the number of the line.
+ */
+final class HandColumns {
+    private static final byte[] STANDARD = ranks("23456789TJQKA");
+    private static final byte[] JOKERS = ranks("J23456789TQKA");
+    private static final int BUFFER = 1 << 16;
+
+    private int[] keys = new int[1024];
+    private long[] bids = new long[1024];
+    private int size;
+
+    private HandColumns() {
+    }
+
+    /**
+     * A table from byte to the rank of the card with that label, or -1.
+     */
+    private static byte[] ranks(String weakestFirst) {
+        var table = new byte[256];
+        Arrays.fill(table, (byte) -1);
+        for (int rank = 0; rank < weakestFirst.length(); rank++)
+            table[weakestFirst.charAt(rank)] = (byte) rank;
+        return table;
+    }
+
+    static HandColumns read(Path file, boolean jokers) throws IOException {
+        try (var in = Files.newInputStream(file)) {
+            return read(in, jokers);
+        }
+    }
+
+    static HandColumns read(InputStream in, boolean jokers) throws IOException {
+        var columns = new HandColumns();
+        var parser = columns.new LineParser(jokers);
+        var buffer = new byte[BUFFER];
+        for (int read; (read = in.read(buffer)) > 0;) {
+            for (int i = 0; i < read; i++)
+                parser.accept(buffer[i]);
+        }
+        parser.endOfLine();
+        return columns;
+    }
+
+    /**
+     * The state of the line being read: the cards so far, whether the spaces
+     * after the hand were seen, and the bid.
+     */
+    private final class LineParser {
+        private final byte[] table;
+        private final boolean jokers;
+        private int line = 1;
+        private int cards;
+        private int code;
+        private boolean separated;
+        private long bid = -1;
+        private boolean trailing;
+
+        LineParser(boolean jokers) {
+            this.table = jokers ? JOKERS : STANDARD;
+            this.jokers = jokers;
+        }
+
+        void accept(byte b) {
+            if (b == '\n' || b == '\r') {
+                endOfLine();
+                line += b == '\n' ? 1 : 0;
+            } else if (b == ' ') {
+                space();
+            } else if (cards < HandRanking.CARDS) {
+                int rank = table[b & 0xFF];
+                if (rank < 0)
+                    throw error("has an invalid card '" + (char) b + "'");
+                code = code * HandTable.RANKS + rank;
+                cards++;
+            } else if (b < '0' || b > '9') {
+                throw error(bid < 0 ? "has an invalid bid" : "has an invalid character after the bid");
+            } else if (!separated) {
+                throw error("has no space between the hand and the bid");
+            } else if (trailing) {
+                throw error("has more than one bid");
+            } else {
+                try {
+                    bid = Math.addExact(Math.multiplyExact(Math.max(bid, 0), 10), b - '0');
+                } catch (ArithmeticException e) {
+                    throw error("has a bid that is too large");
+                }
+            }
+        }
+
+        private void space() {
+            if (cards == 0)
+                return;
+            if (cards < HandRanking.CARDS)
+                throw error("has a hand of " + cards + " cards");
+            if (bid < 0)
+                separated = true;
+            else
+                trailing = true;
+        }
+
+        void endOfLine() {
+            if (bid >= 0)
+                add(HandTable.key(code, jokers), bid);
+            else if (cards > 0 && cards < HandRanking.CARDS)
+                throw error("has a hand of " + cards + " cards");
+            else if (cards > 0)
+                throw error("has no bid");
+            cards = 0;
+            code = 0;
+            separated = false;
+            bid = -1;
+            trailing = false;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Line " + line + " " + message);
+        }
+    }
+
+    private void add(int key, long bid) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            bids = Arrays.copyOf(bids, size * 2);
+        }
+        keys[size] = key;
+        bids[size++] = bid;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int[] keys() {
+        return Arrays.copyOf(keys, size);
+    }
+
+    long[] bids() {
+        return Arrays.copyOf(bids, size);
+    }
+
+    long totalWinnings() {
+        return HandRanking.totalWinnings(keys(), bids());
+    }
+}
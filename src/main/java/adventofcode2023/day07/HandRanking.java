@@ -0,0 +1,179 @@
+package adventofcode2023.day07;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Ranks hands without comparing them. Every hand is packed into a single int
+ * key that orders the same way as the hands do: the strength of its type in
+ * bits 20 and up, and below that the ranks of the five cards, 4 bits each, the
+ * first card in the highest nibble. Higher ranks are stronger cards.
+ *
+ * Keys are less than {@code 2^23}, so sorting them is two passes of a 12 bit
+ * LSD radix sort, moving the bids along with the keys.
+ *
+ * For large inputs {@link #totalWinningsParallel(int[], long[])} partitions
+ * the hands on the top bits of their keys, the type and the first card, and
+ * ranks the partitions concurrently.
+ */
+final class HandRanking {
+    static final int TYPE_SHIFT = 20;
+    static final int CARDS = 5;
+
+    private static final int DIGIT_BITS = 12;
+    private static final int PASSES = 2;
+
+    private HandRanking() {
+    }
+
+    /**
+     * The key of a hand with the type strength and the ranks of its five
+     * cards, each in {@code 0..15}.
+     */
+    static int key(int strength, int... ranks) {
+        return strength << TYPE_SHIFT | cards(ranks);
+    }
+
+    /**
+     * The ranks of the five cards packed in the low 20 bits of a key.
+     */
+    static int cards(int... ranks) {
+        int cards = 0;
+        for (int i = 0; i < CARDS; i++)
+            cards |= ranks[i] << 4 * (CARDS - 1 - i);
+        return cards;
+    }
+
+    static int strength(int key) {
+        return key >>> TYPE_SHIFT;
+    }
+
+    /**
+     * Sorts the keys from weakest to strongest, and the bids with them. Equal
+     * keys keep their order.
+     */
+    static void sort(int[] keys, long[] bids) {
+        sort(keys, bids, 0, keys.length, DIGIT_BITS, PASSES);
+    }
+
+    /**
+     * Sorts the keys in {@code [from, to)} and the bids with them, with
+     * {@code passes} passes of an LSD radix sort on digits of
+     * {@code digitBits} bits, so on the low {@code passes * digitBits} bits of
+     * the keys. Equal keys keep their order.
+     */
+    static void sort(int[] keys, long[] bids, int from, int to, int digitBits, int passes) {
+        int n = to - from;
+        if (n < 2)
+            return;
+        int mask = (1 << digitBits) - 1;
+        int[] fromKeys = keys, toKeys = new int[n];
+        long[] fromBids = bids, toBids = new long[n];
+        int fromStart = from, toStart = 0;
+        var counts = new int[1 << digitBits];
+        for (int pass = 0; pass < passes; pass++) {
+            int shift = pass * digitBits;
+            Arrays.fill(counts, 0);
+            for (int i = fromStart; i < fromStart + n; i++)
+                counts[(fromKeys[i] >>> shift) & mask]++;
+            for (int digit = 0, offset = toStart; digit < counts.length; digit++) {
+                int count = counts[digit];
+                counts[digit] = offset;
+                offset += count;
+            }
+            for (int i = fromStart; i < fromStart + n; i++) {
+                int target = counts[(fromKeys[i] >>> shift) & mask]++;
+                toKeys[target] = fromKeys[i];
+                toBids[target] = fromBids[i];
+            }
+            int[] swapKeys = fromKeys;
+            fromKeys = toKeys;
+            toKeys = swapKeys;
+            long[] swapBids = fromBids;
+            fromBids = toBids;
+            toBids = swapBids;
+            int swapStart = fromStart;
+            fromStart = toStart;
+            toStart = swapStart;
+        }
+        // after an odd number of passes the sorted range is in the buffer
+        if (fromKeys != keys) {
+            System.arraycopy(fromKeys, fromStart, keys, from, n);
+            System.arraycopy(fromBids, fromStart, bids, from, n);
+        }
+    }
+
+    /**
+     * The sum of every bid times the rank of its hand, the weakest hand having
+     * rank 1. Sorts the keys and bids in place.
+     */
+    static long totalWinnings(int[] keys, long[] bids) {
+        sort(keys, bids);
+        long total = 0;
+        for (int i = 0; i < bids.length; i++)
+            total += (i + 1) * bids[i];
+        return total;
+    }
+
+    private static final int BUCKET_SHIFT = 16;
+    private static final int BUCKETS = 1 << (23 - BUCKET_SHIFT);
+    private static final int BUCKET_DIGIT_BITS = 8;
+
+    /**
+     * Like {@link #totalWinnings(int[], long[])}, but using all cores and
+     * without changing the arrays.
+     *
+     * The hands are partitioned into buckets by type and first card, which
+     * are the top bits of the key, so every hand in a bucket is stronger than
+     * every hand in a lower bucket. Chunks of the input are counted in
+     * parallel, a prefix over the counts gives each chunk its own offsets in
+     * every bucket, and the chunks are scattered in parallel. Then every
+     * bucket is sorted on its remaining 16 bits and summed on its own: the
+     * start of the bucket is the rank of its weakest hand minus one.
+     */
+    static long totalWinningsParallel(int[] keys, long[] bids) {
+        int n = keys.length;
+        int chunks = Math.max(1, Math.min(n / 4096, 4 * ForkJoinPool.getCommonPoolParallelism()));
+        int chunkSize = (n + chunks - 1) / chunks;
+        var counts = new int[chunks][BUCKETS];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            var count = counts[chunk];
+            for (int i = chunk * chunkSize, end = Math.min(n, i + chunkSize); i < end; i++)
+                count[keys[i] >>> BUCKET_SHIFT]++;
+        });
+
+        // turn the counts into the offsets of every chunk in every bucket
+        var starts = new int[BUCKETS + 1];
+        for (int bucket = 0, offset = 0; bucket < BUCKETS; bucket++) {
+            starts[bucket] = offset;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int count = counts[chunk][bucket];
+                counts[chunk][bucket] = offset;
+                offset += count;
+            }
+        }
+        starts[BUCKETS] = n;
+
+        var partitionedKeys = new int[n];
+        var partitionedBids = new long[n];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            var offsets = counts[chunk];
+            for (int i = chunk * chunkSize, end = Math.min(n, i + chunkSize); i < end; i++) {
+                int target = offsets[keys[i] >>> BUCKET_SHIFT]++;
+                partitionedKeys[target] = keys[i];
+                partitionedBids[target] = bids[i];
+            }
+        });
+
+        return IntStream.range(0, BUCKETS).parallel().mapToLong(bucket -> {
+            int from = starts[bucket];
+            int to = starts[bucket + 1];
+            sort(partitionedKeys, partitionedBids, from, to, BUCKET_DIGIT_BITS, BUCKET_SHIFT / BUCKET_DIGIT_BITS);
+            long total = 0;
+            for (int i = from; i < to; i++)
+                total += (i + 1L) * partitionedBids[i];
+            return total;
+        }).sum();
+    }
+}
@@ -0,0 +1,52 @@
+package adventofcode2023.day07;
+
+/**
+ * The {@link HandRanking} key of every possible hand, so ranking a hand is an
+ * array lookup instead of a classification. There are only {@code 13^5}
+ * hands; a hand is indexed by its code, the ranks of its cards read as a
+ * base 13 number with the first card as the most significant digit.
+ *
+ * There is a table of 1.5 MB for each joker rule, each built the first time it
+ * is used. That takes a few tens of milliseconds, and saves keeping a
+ * generated resource in sync with {@link HandType}.
+ */
+final class HandTable {
+    static final int RANKS = 13;
+    static final int HANDS = RANKS * RANKS * RANKS * RANKS * RANKS;
+
+    private HandTable() {
+    }
+
+    private static final class Standard {
+        static final int[] KEYS = build(false);
+    }
+
+    private static final class Jokers {
+        static final int[] KEYS = build(true);
+    }
+
+    /**
+     * The code of the hand with these five ranks, each in {@code 0..12}.
+     */
+    static int code(int... ranks) {
+        int code = 0;
+        for (int i = 0; i < HandRanking.CARDS; i++)
+            code = code * RANKS + ranks[i];
+        return code;
+    }
+
+    static int key(int code, boolean jokers) {
+        return jokers ? Jokers.KEYS[code] : Standard.KEYS[code];
+    }
+
+    private static int[] build(boolean jokers) {
+        var keys = new int[HANDS];
+        for (int code = 0; code < HANDS; code++) {
+            int cards = 0;
+            for (int i = 0, rest = code; i < HandRanking.CARDS; i++, rest /= RANKS)
+                cards |= (rest % RANKS) << 4 * i;
+            keys[code] = HandType.of(cards, jokers).strength() << HandRanking.TYPE_SHIFT | cards;
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,64 @@
+package adventofcode2023.day07;
+
+/**
+ * The type of a hand, strongest first, for both the normal rules and the rules
+ * where J is a joker.
+ *
+ * A hand is classified in a single pass: the five cards are counted into a
+ * histogram with a 4 bit count per rank, all packed in one long, and the type
+ * follows from the two highest counts. With jokers, the jokers are taken out
+ * of the histogram and added to the highest count, which is always the best
+ * thing a joker can pretend to be.
+ */
+enum HandType {
+    FiveOfAKind, FourOfAKind, FullHouse, ThreeOfAKind, TwoPair, OnePair, HighCard;
+
+    private static final int TYPES = values().length;
+
+    /**
+     * The rank of the joker when playing with jokers: J is the weakest card.
+     */
+    static final int JOKER_RANK = 0;
+
+    public int strength() {
+        return TYPES - ordinal();
+    }
+
+    /**
+     * Classifies the five cards, packed as in {@link HandRanking#cards(int...)}.
+     */
+    static HandType of(int cards, boolean jokers) {
+        long histogram = 0;
+        for (int i = 0; i < HandRanking.CARDS; i++, cards >>>= 4)
+            histogram += 1L << ((cards & 0xF) << 2);
+
+        int jokerCount = 0;
+        if (jokers) {
+            jokerCount = (int) (histogram >>> (JOKER_RANK << 2)) & 0xF;
+            histogram &= ~(0xFL << (JOKER_RANK << 2));
+        }
+
+        int first = 0;
+        int second = 0;
+        for (; histogram != 0; histogram >>>= 4) {
+            int count = (int) histogram & 0xF;
+            if (count > first) {
+                second = first;
+                first = count;
+            } else if (count > second) {
+                second = count;
+            }
+        }
+        return of(first + jokerCount, second);
+    }
+
+    private static HandType of(int first, int second) {
+        return switch (first) {
+            case 5 -> FiveOfAKind;
+            case 4 -> FourOfAKind;
+            case 3 -> second == 2 ? FullHouse : ThreeOfAKind;
+            case 2 -> second == 2 ? TwoPair : OnePair;
+            default -> HighCard;
+        };
+    }
+}
@@ -0,0 +1,74 @@
+package adventofcode2023.day07;
+
+/**
+ * Keeps the total winnings of a growing set of hands up to date, without
+ * sorting the hands again after every batch.
+ *
+ * Inserting a hand gives it rank one more than the number of hands at or below
+ * its key, and moves every stronger hand up one rank, which adds the sum of
+ * their bids to the total. Both follow from two Fenwick trees over the key
+ * space, one counting hands and one summing bids, so an insert is
+ * {@code O(log n)}. The key space is compressed to the type and the base 13
+ * code of the cards, {@code 7 * 13^5} slots, rather than all {@code 2^23}
+ * packed keys.
+ *
+ * Hands with equal keys rank in the order they were inserted.
+ */
+final class OnlineRanking {
+    private static final int SLOTS = HandType.values().length * HandTable.HANDS;
+
+    private final int[] counts = new int[SLOTS + 1];
+    private final long[] bidSums = new long[SLOTS + 1];
+    private long bidTotal;
+    private long totalWinnings;
+
+    /**
+     * Adds a hand with a {@link HandRanking} key and returns the new total
+     * winnings.
+     */
+    long insert(int key, long bid) {
+        int slot = slot(key);
+        int weakerOrEqual = count(slot);
+        long strongerBids = bidTotal - bidSum(slot);
+        totalWinnings += (weakerOrEqual + 1L) * bid + strongerBids;
+
+        for (int i = slot; i <= SLOTS; i += i & -i) {
+            counts[i]++;
+            bidSums[i] += bid;
+        }
+        bidTotal += bid;
+        return totalWinnings;
+    }
+
+    /**
+     * The 1-based slot of the key: its type, then the code of its cards.
+     */
+    private static int slot(int key) {
+        int code = 0;
+        for (int shift = 4 * (HandRanking.CARDS - 1); shift >= 0; shift -= 4) {
+            int rank = (key >>> shift) & 0xF;
+            if (rank >= HandTable.RANKS)
+                throw new IllegalArgumentException("Not a hand key: " + Integer.toHexString(key));
+            code = code * HandTable.RANKS + rank;
+        }
+        return (HandRanking.strength(key) - 1) * HandTable.HANDS + code + 1;
+    }
+
+    private int count(int slot) {
+        int count = 0;
+        for (int i = slot; i > 0; i -= i & -i)
+            count += counts[i];
+        return count;
+    }
+
+    private long bidSum(int slot) {
+        long sum = 0;
+        for (int i = slot; i > 0; i -= i & -i)
+            sum += bidSums[i];
+        return sum;
+    }
+
+    long totalWinnings() {
+        return totalWinnings;
+    }
+}
@@ -0,0 +1,183 @@
+package adventofcode2023.day08;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * The network of a Day 8 map compiled into flat arrays. The nodes that exist
+ * are numbered {@code 0..n-1} in the order they are defined, and the
+ * transitions are interleaved in a single array: the left neighbour of node
+ * {@code n} is at {@code next[2 * n]}, the right one at {@code next[2 * n + 1]}.
+ * Nodes whose name ends in Z are kept in a bitset.
+ *
+ * Node names can be of any length, as long as they don't contain whitespace,
+ * commas or parentheses.
+ */
+final class CompiledGraph {
+    final byte[] tape;
+    final String[] names;
+    final int[] next;
+    final long[] ends;
+    /**
+     * Name of the node that all pruned nodes are folded into. It can't clash
+     * with a parsed name, those never contain parentheses.
+     */
+    static final String SENTINEL = "(pruned)";
+    private final Map<String, Integer> ids;
+
+    private CompiledGraph(byte[] tape, String[] names, int[] next, Map<String, Integer> ids, long[] ends) {
+        this.tape = tape;
+        this.names = names;
+        this.next = next;
+        this.ids = ids;
+        this.ends = ends;
+    }
+
+    /**
+     * Compiles the puzzle input: the instruction line, an empty line and a
+     * line {@code NAME = (LEFT, RIGHT)} for every node.
+     */
+    static CompiledGraph parse(List<String> input) {
+        var tape = tape(input.get(0));
+        var definitions = new ArrayList<String[]>(input.size());
+        for (String line : input.subList(1, input.size())) {
+            if (line.isBlank())
+                continue;
+            definitions.add(definition(line));
+        }
+
+        var ids = new HashMap<String, Integer>(definitions.size() * 2);
+        var names = new String[definitions.size()];
+        for (var definition : definitions) {
+            if (ids.putIfAbsent(definition[0], ids.size()) != null)
+                throw new IllegalArgumentException("Node " + definition[0] + " is defined twice");
+            names[ids.size() - 1] = definition[0];
+        }
+
+        var next = new int[2 * names.length];
+        for (int node = 0; node < names.length; node++) {
+            var definition = definitions.get(node);
+            next[2 * node] = id(ids, definition[1], definition[0]);
+            next[2 * node + 1] = id(ids, definition[2], definition[0]);
+        }
+        return new CompiledGraph(tape, names, next, ids, nodeSet(names, name -> name.endsWith("Z")));
+    }
+
+    private static byte[] tape(String line) {
+        var tape = new byte[line.length()];
+        for (int i = 0; i < tape.length; i++) {
+            tape[i] = switch (line.charAt(i)) {
+                case 'L' -> 0;
+                case 'R' -> 1;
+                default -> throw new IllegalArgumentException("Unexpected value: " + line.charAt(i));
+            };
+        }
+        return tape;
+    }
+
+    private static String[] definition(String line) {
+        int equals = line.indexOf('=');
+        int open = line.indexOf('(', equals);
+        int comma = line.indexOf(',', open);
+        int close = line.indexOf(')', comma);
+        if (equals < 0 || open < 0 || comma < 0 || close < 0)
+            throw new IllegalArgumentException("Not a node definition: " + line);
+        return new String[] { line.substring(0, equals).strip(), line.substring(open + 1, comma).strip(),
+                line.substring(comma + 1, close).strip() };
+    }
+
+    private static int id(Map<String, Integer> ids, String name, String from) {
+        var id = ids.get(name);
+        if (id == null)
+            throw new IllegalArgumentException("Node " + from + " refers to undefined node " + name);
+        return id;
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    int node(String name) {
+        var id = ids.get(name);
+        if (id == null)
+            throw new IllegalArgumentException("Unknown node " + name);
+        return id;
+    }
+
+    int next(int node, int instruction) {
+        return next[2 * node + instruction];
+    }
+
+    boolean isEnd(int node) {
+        return contains(ends, node);
+    }
+
+    /**
+     * The nodes whose name matches, in node order.
+     */
+    int[] nodes(Predicate<String> names) {
+        var result = new int[this.names.length];
+        int count = 0;
+        for (int node = 0; node < this.names.length; node++) {
+            if (names.test(this.names[node]))
+                result[count++] = node;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * A bitset of the nodes whose name matches.
+     */
+    long[] nodeSet(Predicate<String> names) {
+        return nodeSet(this.names, names);
+    }
+
+    private static long[] nodeSet(String[] names, Predicate<String> matches) {
+        var set = new long[(names.length + 63) >>> 6];
+        for (int node = 0; node < names.length; node++) {
+            if (matches.test(names[node]))
+                set[node >>> 6] |= 1L << node;
+        }
+        return set;
+    }
+
+    /**
+     * A smaller graph with only the {@code kept} nodes, numbered in the order
+     * given, followed by a sentinel node that loops onto itself and is never an
+     * end node. Transitions to nodes that aren't kept go to the sentinel. The
+     * end nodes of the new graph are the kept nodes in {@code ends}.
+     */
+    CompiledGraph prune(int[] kept, long[] ends) {
+        int sentinel = kept.length;
+        var renumbered = new int[names.length];
+        Arrays.fill(renumbered, sentinel);
+        var prunedNames = new String[kept.length + 1];
+        var prunedIds = new HashMap<String, Integer>(kept.length * 2);
+        var prunedEnds = new long[(prunedNames.length + 63) >>> 6];
+        for (int i = 0; i < kept.length; i++) {
+            renumbered[kept[i]] = i;
+            prunedNames[i] = names[kept[i]];
+            prunedIds.put(prunedNames[i], i);
+            if (contains(ends, kept[i]))
+                prunedEnds[i >>> 6] |= 1L << i;
+        }
+        prunedNames[sentinel] = SENTINEL;
+
+        var prunedNext = new int[2 * prunedNames.length];
+        for (int i = 0; i < kept.length; i++) {
+            prunedNext[2 * i] = renumbered[next[2 * kept[i]]];
+            prunedNext[2 * i + 1] = renumbered[next[2 * kept[i] + 1]];
+        }
+        prunedNext[2 * sentinel] = sentinel;
+        prunedNext[2 * sentinel + 1] = sentinel;
+        return new CompiledGraph(tape, prunedNames, prunedNext, prunedIds, prunedEnds);
+    }
+
+    static boolean contains(long[] set, int node) {
+        return (set[node >>> 6] & (1L << node)) != 0;
+    }
+}
@@ -2,9 +2,6 @@ package adventofcode2023.day08;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Pattern;
 
 /**
  * --- Day 8: Haunted Wasteland ---
@@ -61,9 +58,6 @@ import java.util.regex.Pattern;
  * required to reach ZZZ?
  */
 public class Day08Part1 {
-    record Node(String key, String left, String right) {
-    }
-
     record Walker(String directions) {
     }
 
@@ -95,40 +89,14 @@ public class Day08Part1 {
         input = input3;
         var instructionLine = input.get(0);
 
-        Map<String, Node> tree = new HashMap<>();
-
-        Pattern p = Pattern.compile("([A-Z]{3}) = \\(([A-Z]{3})\\, ([A-Z]{3})\\)");
-        for (String line : input.subList(2, input.size())) {
-            var m = p.matcher(line);
-            if (m.find()) {
-                var key = m.group(1);
-                var left = m.group(2);
-                var right = m.group(3);
-
-                tree.put(key, new Node(key, left, right));
-            }
-        }
-        var node = tree.get("AAA");
-        int steps = 0;
-        while (!"ZZZ".equals(node.key())) {
-            var tape = instructionLine;
-            int pos = 0;
-            while (pos < tape.length()) {
-                steps++;
-                var currentNode = node;
-                var step = tape.substring(pos++, pos);
-                switch (step) {
-                    case "L":
-                        node = tree.get(node.left());
-                        break;
-                    case "R":
-                        node = tree.get(node.right());
-                        break;
-                }
-
-                System.out.println(steps + " From: " + currentNode.key() + " " + step + " -> " + node.key());
-            }
-        }
+        var graph = CompiledGraph.parse(input);
+        var walker = new SingleWalker(graph);
+        var steps = walker.walk(graph.node("AAA"), graph.nodeSet("ZZZ"::equals), Long.MAX_VALUE, 10,
+                (step, from, instruction, to) -> System.out.println(step + " From: " + graph.names[from] + " "
+                        + (instruction == 0 ? "L" : "R") + " -> " + graph.names[to]));
         System.out.println("Steps using " + instructionLine + " from AAA to ZZZ: " + steps);
+
+        var queries = new GhostQueries(graph);
+        System.out.println("Steps from AAA to ZZZ using the cycles: " + queries.steps("AAA", "ZZZ").getAsLong());
     }
 }
@@ -1,25 +1,22 @@
 package adventofcode2023.day08;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+
+import adventofcode2023.Checkpoint;
+import adventofcode2023.Fingerprint;
+import adventofcode2023.VectorApi;
 
 /**
  * --- Part Two ---
@@ -95,48 +92,68 @@ public class Day08Part2 {
         var input = input1;
         // input = input2;
 
-        var instructions = constructInstructions(input.get(0));
-
-        Map<String, String[]> tree = constructTreeFromInput(input);
-
-        var startNodes = tree.keySet().stream().filter(k -> k.endsWith("A")).toList();
-        var endNodes = tree.keySet().stream().filter(k -> k.endsWith("Z")).collect(Collectors.toSet());
+        var graph = CompiledGraph.parse(input);
+        var startNodes = graph.nodes(name -> name.endsWith("A"));
 
-        System.out.println("Start nodes: " + startNodes);
-        System.out.println("End nodes: " + endNodes);
+        System.out.println("Start nodes: " + names(graph, startNodes));
+        System.out.println("End nodes: " + names(graph, graph.nodes(name -> name.endsWith("Z"))));
 
-        bruteForceParallel(instructions, tree, startNodes, endNodes);
+        var analysis = GraphAnalysis.analyse(graph, startNodes);
+        System.out.println(analysis);
+        // empty when some ghost never reaches an end node, or when they never line up
+        var steps = analysis.solve();
+        if (steps.isEmpty()) {
+            System.out.println("The ghosts are never all on end nodes at the same time");
+            return;
+        }
+        System.out.println("Steps until all ghosts are on end nodes: " + steps.getAsLong());
+
+        var jumps = JumpTable.build(graph, steps.getAsLong());
+        var positions = jumps.positionsAfter(startNodes, steps.getAsLong());
+        System.out.println("Positions after " + steps.getAsLong() + " steps: " + names(graph, positions));
+
+        // the brute force walks take hours on the puzzle input, they can be
+        // interrupted and continued with --resume
+        if (Arrays.asList(args).contains("--brute-force") || Checkpoint.resume(args)) {
+            var checkpoint = new Checkpoint(Path.of("day08.checkpoint"), Duration.ofMinutes(1),
+                    Fingerprint.of(String.join("\n", input)));
+            var state = WalkState.start(startNodes);
+            if (Checkpoint.resume(args)) {
+                var saved = checkpoint.load();
+                if (saved.isPresent()) {
+                    state = WalkState.load(graph, saved.get());
+                    System.out.println("Resuming at step " + state.step() + ": " + names(graph, state.nodes()));
+                }
+            }
+            boolean vector = Arrays.asList(args).contains("--vector");
+            if (vector && !VectorApi.AVAILABLE)
+                System.err.println("The jdk.incubator.vector module is missing, walking without the Vector API;"
+                        + " run with --add-modules jdk.incubator.vector to use it");
+            if (vector && VectorApi.AVAILABLE)
+                bruteForceVector(graph, state, checkpoint);
+            else
+                bruteForceParallel(graph, state, checkpoint);
+        }
     }
 
     static final int chars = 'Z' - '0' + 1;
 
-    private static void bruteForceOptimized(int[] instructions, Map<String, String[]> textTree,
-            List<String> textStartNodes, Set<String> endNodes) {
-        int[][] nodes = new int[chars * chars * chars][2];
-        for (int i = 0; i < nodes.length; i++)
-            Arrays.fill(nodes[i], -1);
+    private static List<String> names(CompiledGraph graph, int[] nodes) {
+        return Arrays.stream(nodes).mapToObj(n -> graph.names[n]).toList();
+    }
 
-        textTree.entrySet().forEach(e -> {
-            var key = fromStringToNode(e.getKey());
-            nodes[key][0] = fromStringToNode(e.getValue()[0]);
-            nodes[key][1] = fromStringToNode(e.getValue()[1]);
-        });
+    private static void bruteForceOptimized(CompiledGraph graph, int[] startNodes) {
+        var instructions = graph.tape;
+        var next = graph.next;
+        var ends = graph.ends;
 
-        int[] startNodes = new int[textStartNodes.size()];
-        for (int i = 0; i < startNodes.length; i++) {
-            startNodes[i] = fromStringToNode(textStartNodes.get(i));
-        }
-        int[] currentNodes = new int[textStartNodes.size()];
+        int[] currentNodes = new int[startNodes.length];
         System.arraycopy(startNodes, 0, currentNodes, 0, currentNodes.length);
 
         boolean debug = true;
         long stepCounter = 0;
         boolean done = false;
 
-        long result = 10_668_805_667_831L;
-
-        int z = 'Z' - '0';
-
         Instant startTime = Instant.now();
         while (!done) {
             int instruction = instructions[(int) (stepCounter % instructions.length)];
@@ -144,174 +161,73 @@ public class Day08Part2 {
 
             if (stepCounter % 1_000_000_000 == 0) {
                 Duration timeBetweenTicks = Duration.between(startTime, Instant.now());
-                System.out.print("Time between ticks: " + timeBetweenTicks.toSeconds() + "s");
-                System.out.print(", expected duration: " + timeBetweenTicks.multipliedBy(10_668).toHours() + "h");
-                System.out.println(String.format(", percentage done: %.1f%%", (stepCounter * 100.0D) / result));
+                System.out.println("Time between ticks: " + timeBetweenTicks.toSeconds() + "s, at step " + stepCounter);
                 startTime = Instant.now();
             }
 
             boolean allEndNodes = true;
 
             for (int i = 0; i < currentNodes.length; i++) {
-                var nextNode = nodes[currentNodes[i]][instruction];
+                var nextNode = next[2 * currentNodes[i] + instruction];
                 currentNodes[i] = nextNode;
-                allEndNodes &= nextNode % chars == z;
+                allEndNodes &= CompiledGraph.contains(ends, nextNode);
             }
             done = allEndNodes;
         }
         System.out.println("Steps from AAA to ZZZ: " + stepCounter);
     }
 
-    private static AtomicLongArray currentSteps;
-    private static int numberOfNodes;
-
-    private static long currentMinStep() {
-        long min = Long.MAX_VALUE;
-        for (int i = 0; i < numberOfNodes; i++) {
-            long val = currentSteps.get(i);
-            if (val < min)
-                min = val;
+    private static void bruteForceVector(CompiledGraph graph, WalkState state, Checkpoint checkpoint)
+            throws IOException {
+        var walk = new VectorLockstep(graph, state);
+        long steps;
+        Instant startTime = Instant.now();
+        while ((steps = walk.walk(1_000_000_000)) < 0) {
+            var current = walk.state();
+            System.out.println("Time between ticks: " + Duration.between(startTime, Instant.now()).toSeconds()
+                    + "s, at step " + current.step());
+            startTime = Instant.now();
+            if (checkpoint.due())
+                checkpoint.save(current.store(graph));
         }
-        return min;
+        checkpoint.delete();
+        System.out.println("Steps until all ghosts are on end nodes: " + steps);
     }
 
-    private static void bruteForceParallel(int[] instructions, Map<String, String[]> textTree,
-            List<String> textStartNodes, Set<String> endNodes) throws InterruptedException {
-
-        numberOfNodes = textStartNodes.size();
-
-        int[][] nodes = new int[chars * chars * chars][2];
-        for (int i = 0; i < nodes.length; i++)
-            Arrays.fill(nodes[i], -1);
-
-        textTree.entrySet().forEach(e -> {
-            var key = fromStringToNode(e.getKey());
-            nodes[key][0] = fromStringToNode(e.getValue()[0]);
-            nodes[key][1] = fromStringToNode(e.getValue()[1]);
-        });
-
-        int[] startNodes = new int[numberOfNodes];
-        for (int i = 0; i < numberOfNodes; i++) {
-            startNodes[i] = fromStringToNode(textStartNodes.get(i));
-        }
-
-        int[] currentNodes = new int[numberOfNodes];
-        System.arraycopy(startNodes, 0, currentNodes, 0, currentNodes.length);
-
-        currentSteps = new AtomicLongArray(new long[numberOfNodes]);
+    private static void bruteForceParallel(CompiledGraph graph, WalkState state, Checkpoint checkpoint)
+            throws InterruptedException, IOException {
+        var walk = new LockstepWalk(graph, state, 1 << 24, Long.MAX_VALUE).checkpointTo(checkpoint);
 
-        boolean debug = true;
-        long stepCounter = 0;
-
-        AtomicBoolean done = new AtomicBoolean(false);
-        Deque<Long> results = new ConcurrentLinkedDeque<>();
-
-        long result = 10_668_805_667_831L;
-
-        int z = 'Z' - '0';
-
-        CountDownLatch countdown = new CountDownLatch(numberOfNodes);
-
-        class Worker implements Runnable {
-            private long stepCounter = 0;
-            private int workerId;
-            private int currentNode;
-
-            Worker(int id, int startNode) {
-                this.workerId = id;
-                this.currentNode = startNode;
-            }
-
-            @Override
-            public void run() {
-                int lastNode = -1;
-                while (!done.get()) {
-                    int instruction = instructions[(int) (stepCounter % instructions.length)];
-                    stepCounter++;
-
-                    var nextNode = nodes[currentNode][instruction];
-                    currentNode = nextNode;
-
-                    if (nextNode % chars == z) {
-                        results.addLast(stepCounter);
-                        System.out.println(
-                                "Worker " + workerId + " found end node at " + stepCounter + ", queue: " + results);
-                    }
-                    currentSteps.set(workerId, stepCounter);
-                    if (stepCounter > 20)
-                        break;
-                }
-                countdown.countDown();
-                ;
-            }
-        }
-
-        class Watcher implements Runnable {
-            @Override
-            public void run() {
-                while (!done.get()) {
-                    long processUntil = currentMinStep();
-                    System.out.println(
-                            " -> Watcher processing up til: " + processUntil + ", queue size: " + results.size());
-                    System.out.println("    " + results);
-
-                    int recordsProcessed = 0;
-                    var it = results.iterator();
-                    while (it.hasNext()) {
-                        int count = 1;
-                        long currentValueToCompare = it.next();
-                        recordsProcessed++;
-                        long nextValueToCompare = -1;
-                        do {
-                            nextValueToCompare = results.peekFirst();
-                            System.out.println("   #" + recordsProcessed + " " + currentValueToCompare + "?="
-                                    + nextValueToCompare + ", count=" + count);
-                            if (currentValueToCompare == nextValueToCompare) {
-                                count++;
-                                results.removeFirst();
-                                recordsProcessed++;
-                            }
-                        } while (nextValueToCompare == currentValueToCompare);
-
-                        if (count == numberOfNodes) {
-                            System.out.println("Jay! Result = " + currentValueToCompare);
-                            done.set(true);
-                            System.exit(0);
-                        }
-                    }
-                    System.out.println(
-                            " <- Watcher processed up til: " + processUntil + ", processed: " + recordsProcessed);
+        var startTime = Instant.now();
+        var progress = Thread.ofPlatform().daemon().start(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(10_000);
+                    long steps = walk.completedSteps();
+                    var duration = Duration.between(startTime, Instant.now());
+                    System.out.printf("%s %d steps, %.0f steps/s%n",
+                            DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(LocalDateTime.now()), steps,
+                            steps * 1000.0D / Math.max(1, duration.toMillis()));
                 }
+            } catch (InterruptedException e) {
+                // walk finished
             }
-        }
-        Thread.startVirtualThread(new Watcher());
-
-        var startTime = Instant.now();
-        var workers = new ArrayList<Worker>();
-        for (int i = 0; i < startNodes.length; i++) {
-            Worker w = new Worker(i, startNodes[i]);
-            workers.add(w);
-            Thread.startVirtualThread(w);
-        }
+        });
 
-        while (!done.get() && !countdown.await(10, TimeUnit.SECONDS)) {
-            long progress = workers.stream().mapToLong(w -> w.stepCounter).sum();
-            var duration = Duration.between(startTime, Instant.now());
-            long millis = duration.toMillis();
-            var expectedDuration = Duration.ofMillis((long) (millis * (result / (progress * 1.0D))));
+        var steps = walk.run();
+        progress.interrupt();
+        checkpoint.delete();
 
-            System.out.printf("%s %.1f%% %dmin, %s%n",
-                    DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(LocalDateTime.now()),
-                    (progress * 100.0D) / result, expectedDuration.toMinutes(),
-                    DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(LocalDateTime.now().plus(expectedDuration)));
+        if (steps.isPresent()) {
+            System.out.println("Steps until all ghosts are on end nodes: " + steps.getAsLong());
+        } else {
+            System.out.println("The ghosts are never all on end nodes at the same time");
         }
-
-        System.out.println("Steps from AAA to ZZZ: " + stepCounter);
     }
 
     static String fromNodeToString(int node) {
         char char1 = (char) ('0' + (node / chars / chars));
-        char char2 = (char) ('0' + ((node % chars * chars) / chars));
+        char char2 = (char) ('0' + (node / chars % chars));
         char char3 = (char) ('0' + (node % chars));
         return String.valueOf(new char[] { char1, char2, char3 });
     }
@@ -339,8 +255,6 @@ public class Day08Part2 {
         for (int i = 0; i < currentNodes.length; i++) {
             currentNodes[i] = startNodes.get(i);
         }
-        long result = 10_668_805_667_831L;
-
         Instant startTime = Instant.now();
         while (!done) {
             int instruction = instructions[(int) (stepCounter % instructions.length)];
@@ -351,7 +265,6 @@ public class Day08Part2 {
             if (stepCounter % 1_000_000_000 == 0) {
                 Duration timeBetweenTicks = Duration.between(startTime, Instant.now());
                 System.out.println("Time between ticks: " + timeBetweenTicks.toSeconds() + "s");
-                System.out.println("Expected duration: " + timeBetweenTicks.multipliedBy(10_668).toHours() + "h");
             }
             if (debug) {
                 System.out.println(String.format("%-12d From: %s", stepCounter, Arrays.toString(currentNodes)));
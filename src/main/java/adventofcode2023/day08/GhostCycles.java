@@ -0,0 +1,235 @@
+package adventofcode2023.day08;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * Finds the first step at which all ghosts are on an end node, without walking
+ * the ghosts step by step.
+ *
+ * A ghost's state is its node plus its position on the instruction tape, so
+ * its walk ends up in a cycle. For every ghost the walk is followed until a node
+ * repeats at the start of the tape, which gives the length of the tail before
+ * the cycle, the length of the cycle, and every step in the tail and in the
+ * cycle at which the ghost is on an end node. The ghosts are then combined: hits
+ * in the tails are checked directly, hits in the cycles are combined as
+ * residues with the generalised Chinese remainder theorem. This handles ghosts
+ * with several end nodes in their cycle and ghosts with a tail, not just the
+ * case where every ghost hits a single end node exactly at the end of its
+ * cycle.
+ */
+final class GhostCycles {
+    private GhostCycles() {
+    }
+
+    /**
+     * The walk of a single ghost. Steps are counted from 1, the first step
+     * takes the ghost off its start node. The ghost is on an end node at every
+     * step in {@code tailHits}, which are all at most {@code tail}, and at every
+     * step {@code hit + k * length} for each hit in {@code cycleHits}, which
+     * are all in {@code (tail, tail + length]}.
+     */
+    record Cycle(int start, long tail, long length, long[] tailHits, long[] cycleHits) {
+        boolean hitsAt(long step) {
+            if (step <= tail)
+                return Arrays.binarySearch(tailHits, step) >= 0;
+            long inCycle = (step - tail - 1) % length + tail + 1;
+            return Arrays.binarySearch(cycleHits, inCycle) >= 0;
+        }
+
+        boolean reachesEnd() {
+            return tailHits.length > 0 || cycleHits.length > 0;
+        }
+
+        @Override
+        public String toString() {
+            return "Cycle[start=" + start + ", tail=" + tail + ", length=" + length + ", tailHits="
+                    + Arrays.toString(tailHits) + ", cycleHits=" + Arrays.toString(cycleHits) + "]";
+        }
+    }
+
+    static Cycle analyse(CompiledGraph graph, int start, IntPredicate isEnd) {
+        return analyse(graph, start, 0, isEnd);
+    }
+
+    /**
+     * Analyses the walk of a ghost that starts on {@code start} at position
+     * {@code offset} of the instruction tape. Passes of the tape are then
+     * counted from that offset.
+     */
+    static Cycle analyse(CompiledGraph graph, int start, int offset, IntPredicate isEnd) {
+        return walk(graph, start, offset).cycle(isEnd);
+    }
+
+    /**
+     * The nodes a ghost visits, which don't depend on the end nodes:
+     * {@code nodes[i]} is the node after step {@code i + 1}, up to the end of
+     * the first pass through the cycle. The hits for any set of end nodes
+     * follow from it without walking again.
+     */
+    record Walk(int start, long tail, long length, int[] nodes) {
+        Cycle cycle(IntPredicate isEnd) {
+            var tailHits = new long[nodes.length];
+            var cycleHits = new long[nodes.length];
+            int tailCount = 0;
+            int cycleCount = 0;
+            for (int i = 0; i < nodes.length; i++) {
+                if (!isEnd.test(nodes[i]))
+                    continue;
+                long step = i + 1;
+                if (step <= tail)
+                    tailHits[tailCount++] = step;
+                else
+                    cycleHits[cycleCount++] = step;
+            }
+            return new Cycle(start, tail, length, Arrays.copyOf(tailHits, tailCount),
+                    Arrays.copyOf(cycleHits, cycleCount));
+        }
+
+        @Override
+        public String toString() {
+            return "Walk[start=" + start + ", tail=" + tail + ", length=" + length + "]";
+        }
+    }
+
+    /**
+     * Follows the walk of a ghost that starts on {@code start} at position
+     * {@code offset} of the instruction tape until a node repeats at the start
+     * of a pass.
+     */
+    static Walk walk(CompiledGraph graph, int start, int offset) {
+        var instructions = graph.tape;
+        var next = graph.next;
+        int tape = instructions.length;
+        if (offset < 0 || offset >= tape)
+            throw new IllegalArgumentException("Offset " + offset + " is not on a tape of " + tape + " instructions");
+        var seenAtPass = new int[graph.size()];
+        Arrays.fill(seenAtPass, -1);
+        seenAtPass[start] = 0;
+
+        var nodes = new int[tape];
+        int node = start;
+        int step = 0;
+        for (int pass = 1;; pass++) {
+            if (step + tape > nodes.length)
+                nodes = Arrays.copyOf(nodes, Math.max(Math.addExact(step, tape), 2 * nodes.length));
+            for (int i = 0, position = offset; i < tape; i++) {
+                node = next[2 * node + instructions[position]];
+                if (++position == tape)
+                    position = 0;
+                nodes[step++] = node;
+            }
+            if (seenAtPass[node] >= 0) {
+                long tail = (long) seenAtPass[node] * tape;
+                long length = (long) (pass - seenAtPass[node]) * tape;
+                return new Walk(start, tail, length, Arrays.copyOf(nodes, step));
+            }
+            seenAtPass[node] = pass;
+        }
+    }
+
+    /**
+     * The first step at which every ghost is on an end node, or empty when the
+     * ghosts never line up.
+     */
+    static OptionalLong firstCommonHit(List<Cycle> cycles) {
+        if (cycles.isEmpty() || !cycles.stream().allMatch(Cycle::reachesEnd))
+            return OptionalLong.empty();
+
+        long maxTail = cycles.stream().mapToLong(Cycle::tail).max().getAsLong();
+
+        // steps up to the longest tail: walk the hits of one ghost and check the others
+        var first = cycles.get(0);
+        for (long hit : first.tailHits()) {
+            if (hit <= maxTail && allHitAt(cycles, hit))
+                return OptionalLong.of(hit);
+        }
+        for (long base = 0; first.cycleHits().length > 0 && first.cycleHits()[0] + base <= maxTail; base += first
+                .length()) {
+            for (long hit : first.cycleHits()) {
+                if (hit + base <= maxTail && allHitAt(cycles, hit + base))
+                    return OptionalLong.of(hit + base);
+            }
+        }
+
+        // beyond the longest tail every ghost is in its cycle
+        var sorted = cycles.stream().sorted(Comparator.comparingInt(c -> c.cycleHits().length)).toList();
+        Set<Residue> residues = residues(sorted.get(0));
+        for (int i = 1; i < sorted.size() && !residues.isEmpty(); i++) {
+            var next = residues(sorted.get(i));
+            var merged = new HashSet<Residue>();
+            for (Residue a : residues) {
+                for (Residue b : next) {
+                    var combined = a.combine(b);
+                    if (combined != null)
+                        merged.add(combined);
+                }
+            }
+            residues = merged;
+        }
+
+        long best = Long.MAX_VALUE;
+        for (Residue r : residues) {
+            best = Math.min(best, r.firstAfter(maxTail));
+        }
+        return best == Long.MAX_VALUE ? OptionalLong.empty() : OptionalLong.of(best);
+    }
+
+    private static boolean allHitAt(List<Cycle> cycles, long step) {
+        for (Cycle cycle : cycles) {
+            if (!cycle.hitsAt(step))
+                return false;
+        }
+        return true;
+    }
+
+    private static Set<Residue> residues(Cycle cycle) {
+        var result = new HashSet<Residue>();
+        for (long hit : cycle.cycleHits()) {
+            result.add(new Residue(hit % cycle.length(), cycle.length()));
+        }
+        return result;
+    }
+
+    /**
+     * All steps {@code x} with {@code x mod modulus == value}.
+     */
+    record Residue(long value, long modulus) {
+        /**
+         * Solves both congruences at once, or returns null when they have no
+         * common solution. The moduli don't need to be coprime.
+         */
+        Residue combine(Residue other) {
+            var m = BigInteger.valueOf(modulus);
+            var n = BigInteger.valueOf(other.modulus);
+            var g = m.gcd(n);
+            var diff = BigInteger.valueOf(other.value - value);
+            if (diff.mod(g).signum() != 0)
+                return null;
+
+            var lcm = m.divide(g).multiply(n);
+            var reducedM = m.divide(g);
+            var reducedN = n.divide(g);
+            var k = reducedN.equals(BigInteger.ONE) ? BigInteger.ZERO
+                    : diff.divide(g).multiply(reducedM.modInverse(reducedN)).mod(reducedN);
+            var x = BigInteger.valueOf(value).add(m.multiply(k)).mod(lcm);
+            return new Residue(x.longValueExact(), lcm.longValueExact());
+        }
+
+        /**
+         * The first step after {@code limit} with this residue.
+         */
+        long firstAfter(long limit) {
+            if (value > limit)
+                return value;
+            long periods = (limit - value) / modulus + 1;
+            return Math.addExact(value, Math.multiplyExact(periods, modulus));
+        }
+    }
+}
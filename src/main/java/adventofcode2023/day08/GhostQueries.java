@@ -0,0 +1,96 @@
+package adventofcode2023.day08;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import adventofcode2023.day08.GhostCycles.Cycle;
+import adventofcode2023.day08.GhostCycles.Walk;
+
+/**
+ * Answers many questions about the same network: how many steps until a set of
+ * ghosts is on end nodes at the same time, for any start nodes, any end nodes
+ * and any position on the instruction tape to start from. The network is
+ * compiled once.
+ *
+ * Every query is made of the cycles of its ghosts. The nodes a ghost visits
+ * only depend on its start node and the tape offset, so those
+ * {@link GhostCycles.Walk walks} are cached with that as key, and the hits for
+ * the end nodes of a query are read off a cached walk. A new combination of
+ * known ghosts or end nodes is then only a CRT away. The answers are cached
+ * too, so a repeated query is a map lookup.
+ */
+final class GhostQueries {
+    private record WalkKey(int start, int offset) {
+    }
+
+    /**
+     * The end set is a copy that never leaves this class, so it doesn't change
+     * while it is a key.
+     */
+    private record Query(List<Integer> starts, int offset, BitSet ends) {
+    }
+
+    private final CompiledGraph graph;
+    private final Map<WalkKey, Walk> walks = new ConcurrentHashMap<>();
+    private final Map<Query, OptionalLong> answers = new ConcurrentHashMap<>();
+
+    GhostQueries(CompiledGraph graph) {
+        this.graph = graph;
+    }
+
+    static GhostQueries load(Path input) throws IOException {
+        return new GhostQueries(CompiledGraph.parse(Files.readAllLines(input)));
+    }
+
+    CompiledGraph graph() {
+        return graph;
+    }
+
+    /**
+     * The number of steps from node {@code from} to node {@code to}, like in
+     * part 1.
+     */
+    OptionalLong steps(String from, String to) {
+        return steps(List.of(from), to::equals);
+    }
+
+    /**
+     * The first step at which all ghosts starting on the {@code starts} nodes
+     * are on an end node.
+     */
+    OptionalLong steps(List<String> starts, Predicate<String> ends) {
+        return steps(starts.stream().mapToInt(graph::node).toArray(), 0, graph.nodeSet(ends));
+    }
+
+    /**
+     * The first step at which all ghosts starting on the {@code starts} nodes,
+     * at position {@code offset} of the tape, are on one of the nodes in the
+     * {@code ends} set.
+     */
+    OptionalLong steps(int[] starts, int offset, long[] ends) {
+        var endSet = BitSet.valueOf(ends);
+        var sorted = Arrays.stream(starts).sorted().distinct().boxed().toList();
+        return answers.computeIfAbsent(new Query(sorted, offset, endSet), query -> GhostCycles.firstCommonHit(
+                sorted.stream().map(start -> cycle(start, offset, endSet)).toList()));
+    }
+
+    Cycle cycle(int start, int offset, BitSet ends) {
+        return walk(start, offset).cycle(ends::get);
+    }
+
+    Walk walk(int start, int offset) {
+        return walks.computeIfAbsent(new WalkKey(start, offset), key -> GhostCycles.walk(graph, start, offset));
+    }
+
+    int cachedWalks() {
+        return walks.size();
+    }
+}
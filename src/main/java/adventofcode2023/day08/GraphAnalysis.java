@@ -0,0 +1,269 @@
+package adventofcode2023.day08;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+
+import adventofcode2023.day08.GhostCycles.Cycle;
+
+/**
+ * Looks at the shape of the network before walking it: which nodes the ghosts
+ * can reach from their start nodes, which of those can still reach an end node,
+ * and from that which start nodes can never reach an end node at all. Only
+ * the instructions on the tape count as edges, so a node that is only left of
+ * something is dead when the tape is all R's.
+ *
+ * The strongly connected components are found with an iterative Tarjan from the
+ * start nodes, which only visits reachable nodes. Tarjan completes components
+ * in reverse topological order, so when a component completes all components
+ * it has edges to are known, and whether it can reach an end node follows
+ * directly. Dead nodes, like a sink {@code XXX = (XXX, XXX)}, are folded into
+ * one sentinel in a {@link CompiledGraph#prune pruned graph} that the engines
+ * walk instead of the full one.
+ *
+ * The analysis then picks the cheapest engine that gives a valid answer.
+ */
+final class GraphAnalysis {
+    enum Engine {
+        /** Some ghost can never reach an end node, there is no answer. */
+        UNSATISFIABLE,
+        /**
+         * A single ghost, walked with a {@link SingleWalker} until its first end
+         * node or until it must have started looping.
+         */
+        WALK,
+        /** Every ghost is on an end node exactly every cycle length steps. */
+        LCM,
+        /** Anything else, see {@link GhostCycles#firstCommonHit(List)}. */
+        CRT
+    }
+
+    private final CompiledGraph graph;
+    private final int[] starts;
+    private final long[] ends;
+    private final int[] component;
+    private final boolean[] componentReachesEnd;
+    private final int components;
+    private final CompiledGraph pruned;
+    private final int[] prunedStarts;
+    private List<Cycle> cycles;
+
+    private GraphAnalysis(CompiledGraph graph, int[] starts, long[] ends) {
+        this.graph = graph;
+        this.starts = starts;
+        this.ends = ends;
+        int n = graph.size();
+        this.component = new int[n];
+        this.componentReachesEnd = new boolean[n];
+        Arrays.fill(component, -1);
+        this.components = tarjan();
+
+        var kept = new int[n];
+        var renumbered = new int[n];
+        int count = 0;
+        for (int node = 0; node < n; node++) {
+            renumbered[node] = count;
+            if (canReachEnd(node))
+                kept[count++] = node;
+        }
+        this.pruned = graph.prune(Arrays.copyOf(kept, count), ends);
+        this.prunedStarts = Arrays.stream(starts).map(s -> canReachEnd(s) ? renumbered[s] : pruned.size() - 1)
+                .toArray();
+    }
+
+    static GraphAnalysis analyse(CompiledGraph graph, int[] starts, long[] ends) {
+        return new GraphAnalysis(graph, starts, ends);
+    }
+
+    static GraphAnalysis analyse(CompiledGraph graph, int[] starts) {
+        return analyse(graph, starts, graph.ends);
+    }
+
+    /**
+     * Which instructions occur on the tape.
+     */
+    private boolean[] instructions() {
+        var used = new boolean[2];
+        for (byte instruction : graph.tape)
+            used[instruction] = true;
+        return used;
+    }
+
+    private int tarjan() {
+        int n = graph.size();
+        var next = graph.next;
+        var used = instructions();
+        var index = new int[n];
+        var low = new int[n];
+        var onStack = new boolean[n];
+        var stack = new int[n];
+        var calls = new int[n];
+        var edges = new int[n];
+        Arrays.fill(index, -1);
+        int counter = 0;
+        int components = 0;
+        int sp = 0;
+
+        for (int root : starts) {
+            if (index[root] >= 0)
+                continue;
+            int cp = 0;
+            index[root] = low[root] = counter++;
+            stack[sp++] = root;
+            onStack[root] = true;
+            calls[cp] = root;
+            edges[cp++] = 0;
+
+            while (cp > 0) {
+                int node = calls[cp - 1];
+                if (edges[cp - 1] < 2) {
+                    int instruction = edges[cp - 1]++;
+                    if (!used[instruction])
+                        continue;
+                    int w = next[2 * node + instruction];
+                    if (index[w] < 0) {
+                        index[w] = low[w] = counter++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        calls[cp] = w;
+                        edges[cp++] = 0;
+                    } else if (onStack[w]) {
+                        low[node] = Math.min(low[node], index[w]);
+                    }
+                    continue;
+                }
+
+                cp--;
+                if (cp > 0)
+                    low[calls[cp - 1]] = Math.min(low[calls[cp - 1]], low[node]);
+                if (low[node] != index[node])
+                    continue;
+
+                // node is the root of a component, its members are on top of the stack
+                int c = components++;
+                int from = sp;
+                do {
+                    from--;
+                    onStack[stack[from]] = false;
+                    component[stack[from]] = c;
+                } while (stack[from] != node);
+
+                boolean reachesEnd = false;
+                for (int i = from; i < sp && !reachesEnd; i++) {
+                    int member = stack[i];
+                    reachesEnd = CompiledGraph.contains(ends, member);
+                    for (int instruction = 0; instruction < 2 && !reachesEnd; instruction++) {
+                        int w = next[2 * member + instruction];
+                        reachesEnd = used[instruction] && component[w] != c && componentReachesEnd[component[w]];
+                    }
+                }
+                componentReachesEnd[c] = reachesEnd;
+                sp = from;
+            }
+        }
+        return components;
+    }
+
+    boolean isReachable(int node) {
+        return component[node] >= 0;
+    }
+
+    boolean canReachEnd(int node) {
+        return isReachable(node) && componentReachesEnd[component[node]];
+    }
+
+    /**
+     * The start nodes from which no end node can be reached.
+     */
+    int[] unsatisfiable() {
+        return Arrays.stream(starts).filter(s -> !canReachEnd(s)).toArray();
+    }
+
+    CompiledGraph pruned() {
+        return pruned;
+    }
+
+    /**
+     * The start nodes, numbered as in the {@link #pruned() pruned graph}.
+     */
+    int[] prunedStarts() {
+        return prunedStarts;
+    }
+
+    Engine engine() {
+        if (starts.length == 0 || unsatisfiable().length > 0)
+            return Engine.UNSATISFIABLE;
+        if (starts.length == 1)
+            return Engine.WALK;
+        var cycles = cycles();
+        if (!cycles.stream().allMatch(Cycle::reachesEnd))
+            return Engine.UNSATISFIABLE;
+        if (cycles.stream().allMatch(GraphAnalysis::isSimple))
+            return Engine.LCM;
+        return Engine.CRT;
+    }
+
+    /**
+     * Whether the ghost is on an end node exactly at the multiples of its cycle
+     * length, from its first hit on.
+     */
+    private static boolean isSimple(Cycle cycle) {
+        return cycle.tailHits().length == 0 && cycle.cycleHits().length == 1
+                && cycle.cycleHits()[0] % cycle.length() == 0;
+    }
+
+    private List<Cycle> cycles() {
+        if (cycles == null) {
+            cycles = Arrays.stream(prunedStarts).mapToObj(start -> GhostCycles.analyse(pruned, start, pruned::isEnd))
+                    .toList();
+        }
+        return cycles;
+    }
+
+    /**
+     * The first step at which all ghosts are on an end node, using the
+     * {@link #engine() chosen engine}.
+     */
+    OptionalLong solve() {
+        return switch (engine()) {
+            case UNSATISFIABLE -> OptionalLong.empty();
+            case WALK -> {
+                // after this many steps the walk has repeated a node at the start of the tape
+                long bound = (long) (pruned.size() + 1) * pruned.tape.length;
+                long step = new SingleWalker(pruned).walk(prunedStarts[0], pruned.ends, bound);
+                yield step < 0 ? OptionalLong.empty() : OptionalLong.of(step);
+            }
+            case LCM -> {
+                var lcm = BigInteger.ONE;
+                long first = 0;
+                for (Cycle cycle : cycles()) {
+                    var length = BigInteger.valueOf(cycle.length());
+                    lcm = lcm.divide(lcm.gcd(length)).multiply(length);
+                    first = Math.max(first, cycle.cycleHits()[0]);
+                }
+                // the first multiple of the lcm at or after every ghost's first hit
+                var periods = BigInteger.valueOf(first).add(lcm).subtract(BigInteger.ONE).divide(lcm);
+                yield OptionalLong.of(periods.multiply(lcm).longValueExact());
+            }
+            case CRT -> GhostCycles.firstCommonHit(cycles());
+        };
+    }
+
+    @Override
+    public String toString() {
+        int reachable = 0;
+        int live = 0;
+        for (int node = 0; node < graph.size(); node++) {
+            reachable += isReachable(node) ? 1 : 0;
+            live += canReachEnd(node) ? 1 : 0;
+        }
+        int deadComponents = 0;
+        for (int c = 0; c < components; c++)
+            deadComponents += componentReachesEnd[c] ? 0 : 1;
+        return "GraphAnalysis[nodes=" + graph.size() + ", reachable=" + reachable + ", live=" + live
+                + ", components=" + components + ", deadComponents=" + deadComponents + ", unsatisfiable="
+                + Arrays.stream(unsatisfiable()).mapToObj(n -> graph.names[n]).toList() + ", engine=" + engine()
+                + "]";
+    }
+}
@@ -0,0 +1,133 @@
+package adventofcode2023.day08;
+
+/**
+ * Fast-forwards walks over a {@link CompiledGraph} by whole passes of the
+ * instruction tape, using binary lifting. Level {@code k} stores for every node
+ * the node a walker ends up on after {@code 2^k} passes, and the first step
+ * within those passes at which the walker is on an end node.
+ *
+ * Building the table walks every node through the tape once and then doubles,
+ * so it takes {@code O(n * (tape + levels))}. After that a walk of {@code N}
+ * steps costs {@code O(log(N / tape) + tape)}.
+ */
+final class JumpTable {
+    private final CompiledGraph graph;
+    private final long[] ends;
+    private final int[][] jump;
+    private final long[][] firstEnd;
+
+    private JumpTable(CompiledGraph graph, long[] ends, int[][] jump, long[][] firstEnd) {
+        this.graph = graph;
+        this.ends = ends;
+        this.jump = jump;
+        this.firstEnd = firstEnd;
+    }
+
+    /**
+     * Builds a table for walks of up to {@code maxSteps} steps, with the nodes
+     * in {@code ends} as end nodes.
+     */
+    static JumpTable build(CompiledGraph graph, long[] ends, long maxSteps) {
+        var tape = graph.tape;
+        var next = graph.next;
+        int n = graph.size();
+        long maxPasses = maxSteps / tape.length;
+        int levels = Math.max(1, 64 - Long.numberOfLeadingZeros(maxPasses));
+
+        var jump = new int[levels][n];
+        var firstEnd = new long[levels][n];
+        for (int start = 0; start < n; start++) {
+            int node = start;
+            long hit = -1;
+            for (int i = 0; i < tape.length; i++) {
+                node = next[2 * node + tape[i]];
+                if (hit < 0 && CompiledGraph.contains(ends, node))
+                    hit = i + 1;
+            }
+            jump[0][start] = node;
+            firstEnd[0][start] = hit;
+        }
+
+        for (int k = 0; k + 1 < levels; k++) {
+            long stepsPerJump = (long) tape.length << k;
+            for (int node = 0; node < n; node++) {
+                int mid = jump[k][node];
+                jump[k + 1][node] = jump[k][mid];
+                if (firstEnd[k][node] >= 0)
+                    firstEnd[k + 1][node] = firstEnd[k][node];
+                else if (firstEnd[k][mid] >= 0)
+                    firstEnd[k + 1][node] = stepsPerJump + firstEnd[k][mid];
+                else
+                    firstEnd[k + 1][node] = -1;
+            }
+        }
+        return new JumpTable(graph, ends, jump, firstEnd);
+    }
+
+    static JumpTable build(CompiledGraph graph, long maxSteps) {
+        return build(graph, graph.ends, maxSteps);
+    }
+
+    /**
+     * The node a walker starting on {@code node} at the start of the tape is
+     * on after {@code steps} steps.
+     */
+    int positionAfter(int node, long steps) {
+        long passes = passes(steps);
+        for (int k = 0; passes != 0; k++, passes >>>= 1) {
+            if ((passes & 1) != 0)
+                node = jump[k][node];
+        }
+        var tape = graph.tape;
+        var next = graph.next;
+        int remainder = (int) (steps % tape.length);
+        for (int i = 0; i < remainder; i++)
+            node = next[2 * node + tape[i]];
+        return node;
+    }
+
+    /**
+     * Where each of the ghosts is after {@code steps} steps.
+     */
+    int[] positionsAfter(int[] ghosts, long steps) {
+        var result = new int[ghosts.length];
+        for (int g = 0; g < ghosts.length; g++)
+            result[g] = positionAfter(ghosts[g], steps);
+        return result;
+    }
+
+    /**
+     * The first step, at most {@code steps}, at which a walker starting on
+     * {@code node} is on an end node, or -1 when it isn't within that many
+     * steps.
+     */
+    long firstEnd(int node, long steps) {
+        long passes = passes(steps);
+        long walked = 0;
+        for (int k = jump.length - 1; k >= 0; k--) {
+            if ((passes & (1L << k)) == 0)
+                continue;
+            if (firstEnd[k][node] >= 0)
+                return walked + firstEnd[k][node];
+            walked += (long) graph.tape.length << k;
+            node = jump[k][node];
+        }
+        var tape = graph.tape;
+        var next = graph.next;
+        int remainder = (int) (steps % tape.length);
+        for (int i = 0; i < remainder; i++) {
+            node = next[2 * node + tape[i]];
+            if (CompiledGraph.contains(ends, node))
+                return walked + i + 1;
+        }
+        return -1;
+    }
+
+    private long passes(long steps) {
+        long passes = steps / graph.tape.length;
+        if (passes >= 1L << jump.length)
+            throw new IllegalArgumentException("The table only covers " + ((1L << jump.length) - 1)
+                    + " passes of the tape, asked for " + passes);
+        return passes;
+    }
+}
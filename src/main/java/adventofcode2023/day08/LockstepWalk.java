@@ -0,0 +1,175 @@
+package adventofcode2023.day08;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.OptionalLong;
+import java.util.concurrent.Phaser;
+import java.util.stream.IntStream;
+
+import adventofcode2023.Checkpoint;
+
+/**
+ * Walks all ghosts in parallel, one thread per ghost, in epochs of a fixed
+ * number of steps. During an epoch a walker only touches its own state: it
+ * records the steps at which it is on an end node in a private, naturally
+ * sorted buffer. At the end of every epoch the walkers meet at a
+ * {@link Phaser}; the last one to arrive intersects the hit buffers of that
+ * epoch, in parallel, before the next epoch starts. That is also the moment
+ * the walk can be checkpointed: every walker is idle and all hits up to the
+ * end of the epoch have been checked.
+ */
+final class LockstepWalk {
+    private final CompiledGraph graph;
+    private final int epochSteps;
+    private final long maxSteps;
+    private final Walker[] walkers;
+    private final Phaser phaser;
+    private Checkpoint checkpoint;
+
+    private volatile long completedSteps;
+    private volatile long result = -1;
+
+    LockstepWalk(CompiledGraph graph, int[] startNodes, int epochSteps, long maxSteps) {
+        this(graph, WalkState.start(startNodes), epochSteps, maxSteps);
+    }
+
+    /**
+     * Continues a walk from a saved state.
+     */
+    LockstepWalk(CompiledGraph graph, WalkState state, int epochSteps, long maxSteps) {
+        this.graph = graph;
+        this.epochSteps = epochSteps;
+        this.maxSteps = maxSteps;
+        this.completedSteps = state.step();
+        this.walkers = new Walker[state.nodes().length];
+        for (int i = 0; i < walkers.length; i++)
+            walkers[i] = new Walker(state.nodes()[i], state.step());
+        this.phaser = new Phaser(walkers.length) {
+            @Override
+            protected boolean onAdvance(int phase, int registeredParties) {
+                return endOfEpoch();
+            }
+        };
+    }
+
+    /**
+     * Runs the walk until all ghosts are on an end node at the same step, or
+     * until {@code maxSteps} have been walked.
+     */
+    OptionalLong run() throws InterruptedException {
+        var threads = new Thread[walkers.length];
+        for (int i = 0; i < walkers.length; i++) {
+            threads[i] = Thread.ofPlatform().name("walker-" + i).start(walkers[i]);
+        }
+        for (Thread thread : threads)
+            thread.join();
+        return result < 0 ? OptionalLong.empty() : OptionalLong.of(result);
+    }
+
+    long completedSteps() {
+        return completedSteps;
+    }
+
+    /**
+     * Saves the state of the walk to the checkpoint at the end of an epoch,
+     * whenever the checkpoint is due.
+     */
+    LockstepWalk checkpointTo(Checkpoint checkpoint) {
+        this.checkpoint = checkpoint;
+        return this;
+    }
+
+    /**
+     * Called by the last walker to arrive at the barrier, after all walkers
+     * finished the epoch. Returns true to stop the walk.
+     */
+    private boolean endOfEpoch() {
+        Walker driver = walkers[0];
+        for (Walker walker : walkers) {
+            if (walker.hitCount < driver.hitCount)
+                driver = walker;
+        }
+
+        var candidates = driver.hits;
+        var first = IntStream.range(0, driver.hitCount).parallel()
+                .mapToLong(i -> candidates[i])
+                .filter(step -> step <= maxSteps && allHit(step))
+                .findFirst();
+
+        for (Walker walker : walkers)
+            walker.hitCount = 0;
+        completedSteps += epochSteps;
+
+        if (first.isPresent()) {
+            result = first.getAsLong();
+            return true;
+        }
+        if (checkpoint != null && checkpoint.due())
+            save();
+        return completedSteps >= maxSteps;
+    }
+
+    private void save() {
+        var nodes = new int[walkers.length];
+        for (int i = 0; i < walkers.length; i++)
+            nodes[i] = walkers[i].node;
+        try {
+            checkpoint.save(new WalkState(completedSteps, nodes).store(graph));
+        } catch (IOException e) {
+            // the walkers are waiting on the barrier, so keep walking and try again next epoch
+            System.err.println("Failed to save " + checkpoint + ": " + e);
+        }
+    }
+
+    private boolean allHit(long step) {
+        for (Walker walker : walkers) {
+            if (Arrays.binarySearch(walker.hits, 0, walker.hitCount, step) < 0)
+                return false;
+        }
+        return true;
+    }
+
+    private final class Walker implements Runnable {
+        private int node;
+        private int position;
+        private long step;
+        private long[] hits = new long[64];
+        private int hitCount;
+
+        Walker(int node, long step) {
+            this.node = node;
+            this.step = step;
+            this.position = (int) (step % graph.tape.length);
+        }
+
+        @Override
+        public void run() {
+            var tape = graph.tape;
+            var next = graph.next;
+            var ends = graph.ends;
+            while (!phaser.isTerminated()) {
+                int node = this.node;
+                int position = this.position;
+                long step = this.step;
+                for (int i = 0; i < epochSteps; i++) {
+                    node = next[2 * node + tape[position]];
+                    step++;
+                    if (++position == tape.length)
+                        position = 0;
+                    if (CompiledGraph.contains(ends, node))
+                        hit(step);
+                }
+                this.node = node;
+                this.position = position;
+                this.step = step;
+                phaser.arriveAndAwaitAdvance();
+            }
+        }
+
+        private void hit(long step) {
+            if (hitCount == hits.length)
+                hits = Arrays.copyOf(hits, hits.length * 2);
+            hits[hitCount++] = step;
+        }
+    }
+}
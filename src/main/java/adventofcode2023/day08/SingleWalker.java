@@ -0,0 +1,54 @@
+package adventofcode2023.day08;
+
+/**
+ * Walks a single path through a {@link CompiledGraph}. The walk only touches
+ * the tape and the transition array and keeps its state in locals, so it
+ * doesn't allocate and runs at the speed the transition array can be read.
+ *
+ * Instead of printing every step, a {@link Trace} can be called for one step
+ * in every {@code 2^k}.
+ */
+final class SingleWalker {
+    @FunctionalInterface
+    interface Trace {
+        void step(long step, int from, int instruction, int to);
+    }
+
+    private final CompiledGraph graph;
+
+    SingleWalker(CompiledGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * The number of steps from {@code from} to the first node in {@code ends},
+     * or -1 when there is no end node within {@code maxSteps} steps.
+     */
+    long walk(int from, long[] ends, long maxSteps) {
+        return walk(from, ends, maxSteps, 0, null);
+    }
+
+    /**
+     * Like {@link #walk(int, long[], long)}, calling {@code trace} for every
+     * step that is a multiple of {@code 2^sampleBits}.
+     */
+    long walk(int from, long[] ends, long maxSteps, int sampleBits, Trace trace) {
+        var tape = graph.tape;
+        var next = graph.next;
+        long sampleMask = trace == null ? -1 : (1L << sampleBits) - 1;
+        int node = from;
+        int position = 0;
+        for (long step = 1; step <= maxSteps; step++) {
+            int instruction = tape[position];
+            int to = next[2 * node + instruction];
+            if ((step & sampleMask) == 0)
+                trace.step(step, node, instruction, to);
+            node = to;
+            if (CompiledGraph.contains(ends, node))
+                return step;
+            if (++position == tape.length)
+                position = 0;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,95 @@
+package adventofcode2023.day08;
+
+import java.util.Arrays;
+
+import adventofcode2023.VectorApi;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Steps all ghosts at once, several lanes per instruction, with the Vector API
+ * (see {@link VectorApi}).
+ *
+ * The ghosts are kept in vectors as entries {@code 2 * node + end}, where
+ * {@code end} is 1 when the node is an end node. The transitions are stored the
+ * same way, so {@code (entry & ~1) | instruction} is the index of the next
+ * entry: a step is a single gather, and whether all ghosts are on an end node is
+ * a compare of the low bits and a mask reduction. When the number of ghosts
+ * isn't a multiple of the vector length, the last vector is padded with copies
+ * of the first ghost, which don't change the outcome. Wide vectors with mostly
+ * padding only make the gathers slower, so the vectors are at most 256 bits: 8
+ * ghosts per vector, which fits the six ghosts of the puzzle input.
+ */
+final class VectorLockstep {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED.length() > 8
+            ? IntVector.SPECIES_256
+            : IntVector.SPECIES_PREFERRED;
+
+    private final CompiledGraph graph;
+    private final int[] transitions;
+    private final int[] indexes = new int[SPECIES.length()];
+    private final IntVector[] ghosts;
+    private final int count;
+    private long step;
+
+    VectorLockstep(CompiledGraph graph, WalkState state) {
+        this.graph = graph;
+        this.transitions = new int[graph.next.length];
+        for (int i = 0; i < transitions.length; i++)
+            transitions[i] = entry(graph, graph.next[i]);
+
+        var nodes = state.nodes();
+        if (nodes.length == 0)
+            throw new IllegalArgumentException("There are no ghosts to walk");
+        this.count = nodes.length;
+        this.step = state.step();
+        this.ghosts = new IntVector[(count + SPECIES.length() - 1) / SPECIES.length()];
+        var lanes = new int[ghosts.length * SPECIES.length()];
+        for (int i = 0; i < lanes.length; i++)
+            lanes[i] = entry(graph, nodes[i < count ? i : 0]);
+        for (int v = 0; v < ghosts.length; v++)
+            ghosts[v] = IntVector.fromArray(SPECIES, lanes, v * SPECIES.length());
+    }
+
+    private static int entry(CompiledGraph graph, int node) {
+        return 2 * node + (graph.isEnd(node) ? 1 : 0);
+    }
+
+    /**
+     * Walks at most {@code steps} steps, and returns the first step at which
+     * all ghosts are on an end node, or -1 when they aren't within those steps.
+     */
+    long walk(long steps) {
+        var tape = graph.tape;
+        var transitions = this.transitions;
+        var indexes = this.indexes;
+        var ghosts = this.ghosts;
+        int position = (int) (step % tape.length);
+        for (long i = 0; i < steps; i++) {
+            int instruction = tape[position];
+            if (++position == tape.length)
+                position = 0;
+            step++;
+
+            boolean allEndNodes = true;
+            for (int v = 0; v < ghosts.length; v++) {
+                ghosts[v].and(~1).or(instruction).intoArray(indexes, 0);
+                var next = IntVector.fromArray(SPECIES, transitions, 0, indexes, 0);
+                ghosts[v] = next;
+                allEndNodes &= next.and(1).compare(VectorOperators.NE, 0).allTrue();
+            }
+            if (allEndNodes)
+                return step;
+        }
+        return -1;
+    }
+
+    WalkState state() {
+        var lanes = new int[ghosts.length * SPECIES.length()];
+        for (int v = 0; v < ghosts.length; v++)
+            ghosts[v].intoArray(lanes, v * SPECIES.length());
+        return new WalkState(step, Arrays.stream(lanes, 0, count).map(entry -> entry >>> 1).toArray());
+    }
+}
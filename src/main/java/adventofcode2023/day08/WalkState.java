@@ -0,0 +1,46 @@
+package adventofcode2023.day08;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Where a step by step walk of the ghosts is: the number of steps taken and the
+ * node every ghost is on. All ghosts start at the start of the instruction
+ * tape, so after {@code step} steps they are at {@code step % tape.length}.
+ *
+ * The walks only save their state after checking every step up to
+ * {@code step} for end node hits, so there are never pending hits to store.
+ */
+record WalkState(long step, int[] nodes) {
+    static WalkState start(int[] startNodes) {
+        return new WalkState(0, startNodes.clone());
+    }
+
+    /**
+     * The state as properties. Nodes are stored by name, so the checkpoint
+     * doesn't depend on the numbering of the compiled graph.
+     */
+    Properties store(CompiledGraph graph) {
+        var properties = new Properties();
+        properties.setProperty("step", Long.toString(step));
+        properties.setProperty("tape", Integer.toString(graph.tape.length));
+        properties.setProperty("nodes",
+                String.join(",", Arrays.stream(nodes).mapToObj(n -> graph.names[n]).toList()));
+        return properties;
+    }
+
+    static WalkState load(CompiledGraph graph, Properties properties) {
+        int tape = Integer.parseInt(properties.getProperty("tape"));
+        if (tape != graph.tape.length)
+            throw new IllegalArgumentException(
+                    "Checkpoint is for a tape of " + tape + " instructions, not " + graph.tape.length);
+        var step = Long.parseLong(properties.getProperty("step"));
+        var nodes = Arrays.stream(properties.getProperty("nodes").split(",")).mapToInt(graph::node).toArray();
+        return new WalkState(step, nodes);
+    }
+
+    @Override
+    public String toString() {
+        return "WalkState[step=" + step + ", nodes=" + Arrays.toString(nodes) + "]";
+    }
+}
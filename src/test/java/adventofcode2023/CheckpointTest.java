@@ -0,0 +1,49 @@
+package adventofcode2023;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Properties;
+
+import org.junit.Test;
+
+public class CheckpointTest {
+    @Test
+    public void savesAndLoadsTheState() throws IOException {
+        var file = Files.createTempDirectory("checkpoint").resolve("walk.checkpoint");
+        var checkpoint = new Checkpoint(file, Duration.ZERO, Fingerprint.of("input"));
+        assertEquals(Optional.empty(), checkpoint.load());
+        assertTrue(checkpoint.due());
+
+        var state = new Properties();
+        state.setProperty("step", "42");
+        checkpoint.save(state);
+        assertEquals(Optional.of(state), new Checkpoint(file, Duration.ZERO, Fingerprint.of("input")).load());
+
+        checkpoint.delete();
+        assertFalse(Files.exists(file));
+        assertEquals(Optional.empty(), checkpoint.load());
+    }
+
+    @Test
+    public void refusesTheCheckpointOfAnotherInput() throws IOException {
+        var file = Files.createTempDirectory("checkpoint").resolve("walk.checkpoint");
+        new Checkpoint(file, Duration.ZERO, Fingerprint.of("input")).save(new Properties());
+        var other = new Checkpoint(file, Duration.ZERO, Fingerprint.of("another input"));
+        assertThrows(IllegalStateException.class, other::load);
+        assertTrue(Files.exists(file));
+    }
+
+    @Test
+    public void notDueBeforeTheInterval() {
+        var checkpoint = new Checkpoint(Path.of("walk.checkpoint"), Duration.ofHours(1), Fingerprint.of("input"));
+        assertFalse(checkpoint.due());
+    }
+}
@@ -0,0 +1,64 @@
+package adventofcode2023.day03;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class SchematicTest {
+    @Test
+    public void demo() {
+        var result = Schematic.scan("""
+                467..114..
+                ...*......
+                ..35..633.
+                ......#...
+                617*......
+                .....+.58.
+                ..592.....
+                ......755.
+                ...$.*....
+                .664.598..
+                """.lines().toList());
+        assertEquals(new Schematic.Result(4361, 467835), result);
+    }
+
+    @Test
+    public void numberTouchingSeveralSymbols() {
+        // 12 touches both symbols and counts once
+        assertEquals(new Schematic.Result(12, 0), scan("#..", "12.", "..$"));
+        assertEquals(new Schematic.Result(12, 0), scan("#12$"));
+    }
+
+    @Test
+    public void gearTouchingTheSameNumberTwice() {
+        // the * touches 123 with two of its digits, that is still one number
+        assertEquals(new Schematic.Result(123, 0), scan("123", ".*."));
+        assertEquals(new Schematic.Result(123 + 4, 123 * 4), scan("123", ".*4"));
+    }
+
+    @Test
+    public void gearsNeedExactlyTwoNumbers() {
+        assertEquals(new Schematic.Result(1 + 2 + 3, 0), scan("1.2", ".*.", "3.."));
+        assertEquals(new Schematic.Result(1, 0), scan("1*."));
+    }
+
+    @Test
+    public void emptyInput() {
+        assertEquals(new Schematic.Result(0, 0), scan());
+        assertEquals(new Schematic.Result(0, 0), scan("", ""));
+    }
+
+    @Test
+    public void linesOfDifferentLengths() {
+        // missing cells at the end of a short line are empty
+        assertEquals(new Schematic.Result(7 + 45, 7 * 45), scan("..7", "...*", "..45"));
+        assertEquals(new Schematic.Result(9, 0), scan("", "9", "*", "", "88"));
+        assertEquals(new Schematic.Result(0, 0), scan("1", "..#"));
+    }
+
+    private static Schematic.Result scan(String... lines) {
+        return Schematic.scan(List.of(lines));
+    }
+}
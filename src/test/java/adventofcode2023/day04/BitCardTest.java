@@ -0,0 +1,52 @@
+package adventofcode2023.day04;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+
+public class BitCardTest {
+    @Test
+    public void demo() {
+        var cards = """
+                Card 1: 41 48 83 86 17 | 83 86  6 31 17  9 48 53
+                Card 2: 13 32 20 16 61 | 61 30 68 82 17 32 24 19
+                Card 3:  1 21 53 59 44 | 69 82 63 72 16 21 14  1
+                Card 4: 41 92 73 84 69 | 59 84 76 51 58  5 54 83
+                Card 5: 87 83 26 28 32 | 88 30 70 12 93 22 82 36
+                Card 6: 31 18 13 56 72 | 74 77 10 23 35 67 36 11
+                """.lines().map(BitCard::parse).toList();
+
+        assertEquals(6, cards.get(5).number());
+        assertEquals("[4, 2, 2, 1, 0, 0]", cards.stream().map(BitCard::matches).toList().toString());
+        assertEquals(13, cards.stream().mapToInt(BitCard::score).sum());
+    }
+
+    @Test
+    public void largeNumbers() {
+        assertEquals(1, BitCard.parse("Card 1: 5 1000 | 1000 7").matches());
+        assertEquals(1, BitCard.parse("Card 1: " + BitCard.MAX_NUMBER + " | " + BitCard.MAX_NUMBER).matches());
+        assertThrows(IllegalArgumentException.class, () -> BitCard.parse("Card 1: 4000000000 | 1"));
+        assertThrows(IllegalArgumentException.class, () -> BitCard.parse("Card 1: 1 | " + (BitCard.MAX_NUMBER + 1)));
+        assertThrows(IllegalArgumentException.class, () -> BitCard.parse("Card 4000000000: 1 | 1"));
+    }
+
+    @Test
+    public void numbersListedTwice() {
+        assertThrows(IllegalArgumentException.class, () -> BitCard.parse("Card 1: 1 1 | 1 2"));
+        assertThrows(IllegalArgumentException.class, () -> BitCard.parse("Card 1: 1 2 | 1 1"));
+        assertEquals(1, BitCard.parse("Card 1: 1 2 | 1 3").matches());
+    }
+
+    @Test
+    public void equalCards() {
+        // the bitsets grow differently with the order of the numbers
+        assertEquals(BitCard.parse("Card 1: 200 300 | 1"), BitCard.parse("Card 1: 300 200 | 1"));
+        assertEquals(BitCard.parse("Card 1: 200 300 | 1").hashCode(),
+                BitCard.parse("Card 1: 300 200 | 1").hashCode());
+        assertEquals(BitCard.parse("Card 1: 1 | 2"), new BitCard(1, new long[] { 2, 0, 0, 0 }, new long[] { 4 }));
+        assertNotEquals(BitCard.parse("Card 1: 1 | 2"), BitCard.parse("Card 2: 1 | 2"));
+        assertNotEquals(BitCard.parse("Card 1: 1 | 2"), BitCard.parse("Card 1: 1 | 3"));
+    }
+}
@@ -0,0 +1,97 @@
+package adventofcode2023.day04;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class ScratchcardStreamTest {
+    @Test
+    public void demo() throws IOException {
+        var input = """
+                Card 1: 41 48 83 86 17 | 83 86  6 31 17  9 48 53
+                Card 2: 13 32 20 16 61 | 61 30 68 82 17 32 24 19
+                Card 3:  1 21 53 59 44 | 69 82 63 72 16 21 14  1
+                Card 4: 41 92 73 84 69 | 59 84 76 51 58  5 54 83
+                Card 5: 87 83 26 28 32 | 88 30 70 12 93 22 82 36
+
+                Card 6: 31 18 13 56 72 | 74 77 10 23 35 67 36 11
+                """;
+        assertEquals(BigInteger.valueOf(30), ScratchcardStream.totalCards(new BufferedReader(new StringReader(input))));
+    }
+
+    @Test
+    public void matchesTheArrayVersionAfterEveryCard() {
+        var random = new Random(48);
+        for (int round = 0; round < 200; round++) {
+            // mostly few matches, sometimes 16 or more so the ring buffer grows
+            var matches = random.ints(1 + random.nextInt(80), 0, 100)
+                    .map(odds -> odds < 90 ? odds % 3 : 16 + odds % 30).toArray();
+            var stream = new ScratchcardStream();
+            for (int card = 0; card < matches.length; card++) {
+                // the prefix ends on this card, so copies won past it don't count in either
+                var prefix = Arrays.copyOf(matches, card + 1);
+                stream.add(matches[card]);
+                assertEquals(ParallelScratchcards.totalCards(prefix), stream.total());
+                assertEquals(card + 1, stream.cards());
+                try {
+                    assertEquals(BigInteger.valueOf(Day04Part2.totalCards(prefix)), stream.total());
+                } catch (ArithmeticException e) {
+                    // the array version only counts in longs
+                    assertTrue(stream.total().bitLength() >= Long.SIZE);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void copiesOfTheNextCards() {
+        var stream = new ScratchcardStream();
+        stream.add(20);
+        for (int card = 2; card <= 21; card++) {
+            stream.add(0);
+            assertEquals(BigInteger.valueOf(1 + 2 * (card - 1)), stream.total());
+        }
+        stream.add(0);
+        assertEquals(BigInteger.valueOf(42), stream.total());
+    }
+
+    @Test
+    public void everyCardWinsAllNextCards() {
+        // card i wins copies of all later cards, so there are 2^n - 1 cards
+        for (int n : new int[] { 62, 63, 64, 200 }) {
+            var expected = BigInteger.TWO.pow(n).subtract(BigInteger.ONE);
+            var matches = new int[n];
+            for (int i = 0; i < n; i++)
+                matches[i] = n - 1 - i;
+
+            var stream = new ScratchcardStream();
+            for (int m : matches)
+                stream.add(m);
+            assertEquals(expected, stream.total());
+            assertEquals(expected, ParallelScratchcards.totalCards(matches));
+            if (n < 64)
+                assertEquals(expected.longValueExact(), Day04Part2.totalCards(matches));
+            else
+                assertThrows(ArithmeticException.class, () -> Day04Part2.totalCards(matches));
+
+            var cards = new ArrayList<Day04Part2.Card>();
+            for (int i = n - 1; i >= 0; i--) {
+                var numbers = IntStream.range(0, matches[i]).boxed().toList();
+                cards.add(new Day04Part2.Card(i + 1, numbers, numbers));
+            }
+            // listed in reverse, the cards are counted in the order of their numbers
+            assertEquals(expected, Day04Part2.totalCards(cards));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package adventofcode2023.day05;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import adventofcode2023.day05.Day05Part2.Mapping;
+import adventofcode2023.day05.Day05Part2.MappingRange;
+
+public class ComposedRouteTest {
+    @Test
+    public void example() {
+        var route = new ComposedRoute(DemoAlmanac.stages());
+
+        assertEquals(82, route.map(79));
+        assertEquals(46, route.map(82));
+        assertEquals(46, Math.min(route.lowest(79, 14), route.lowest(55, 13)));
+    }
+
+    @Test
+    public void matchesStageByStageBeforeAndAfterReplace() {
+        var random = new Random(5);
+        for (int round = 0; round < 300; round++) {
+            var stages = new Stage[1 + random.nextInt(7)];
+            for (int i = 0; i < stages.length; i++)
+                stages[i] = Stage.random(random);
+            var route = new ComposedRoute(tables(stages));
+            long[][] intervals = new long[5][];
+            for (int i = 0; i < intervals.length; i++)
+                intervals[i] = new long[] { random.nextInt(120), 1 + random.nextInt(40) };
+
+            assertMatches(stages, route, intervals);
+            for (int replacement = 0; replacement < 4; replacement++) {
+                int stage = random.nextInt(stages.length);
+                stages[stage] = Stage.random(random);
+                route.replace(stage, stages[stage].table());
+                assertMatches(stages, route, intervals);
+            }
+        }
+    }
+
+    @Test
+    public void replaceOnGraphUpdatesRoutesAndComposedRoutes() {
+        var random = new Random(29);
+        var names = List.of("seed", "soil", "water", "location");
+        for (int round = 0; round < 100; round++) {
+            var stages = new Stage[names.size() - 1];
+            var maps = new LinkedHashMap<Mapping, List<MappingRange>>();
+            for (int i = 0; i < stages.length; i++) {
+                stages[i] = Stage.random(random);
+                maps.put(new Mapping(new AtomicReference<>(), names.get(i), names.get(i + 1)), stages[i].ranges());
+            }
+            var graph = CategoryGraph.of(maps);
+            var route = graph.route("seed", "location");
+            var composed = graph.composed("seed", "location");
+            long[][] intervals = { { random.nextInt(120), 1 + random.nextInt(40) } };
+            assertMatches(stages, composed, intervals);
+
+            int stage = random.nextInt(stages.length);
+            stages[stage] = Stage.random(random);
+            graph.replace(names.get(stage), names.get(stage + 1), CategoryGraph.table(stages[stage].ranges()));
+            assertMatches(stages, composed, intervals);
+            for (long value = -5; value < 130; value++)
+                assertEquals(map(stages, value), route.map(value));
+        }
+    }
+
+    private static void assertMatches(Stage[] stages, ComposedRoute route, long[][] intervals) {
+        for (long value = -5; value < 130; value++)
+            assertEquals(map(stages, value), route.map(value));
+        for (long[] interval : intervals) {
+            long expected = Long.MAX_VALUE;
+            for (long value = interval[0]; value < interval[0] + interval[1]; value++)
+                expected = Math.min(expected, map(stages, value));
+            assertEquals(expected, route.lowest(interval[0], interval[1]));
+        }
+    }
+
+    private static long map(Stage[] stages, long value) {
+        for (Stage stage : stages)
+            value = stage.map(value);
+        return value;
+    }
+
+    private static RangeTable[] tables(Stage[] stages) {
+        var tables = new RangeTable[stages.length];
+        for (int i = 0; i < stages.length; i++)
+            tables[i] = stages[i].table();
+        return tables;
+    }
+
+    /**
+     * The columns of an almanac map, mapped the plain way by looking at every
+     * range in turn.
+     */
+    private record Stage(long[] dest, long[] src, long[] length) {
+        static Stage random(Random random) {
+            int count = random.nextInt(6);
+            var dest = new long[count];
+            var src = new long[count];
+            var length = new long[count];
+            long cursor = random.nextInt(10);
+            for (int i = 0; i < count; i++) {
+                src[i] = cursor;
+                length[i] = 1 + random.nextInt(20);
+                dest[i] = random.nextInt(150);
+                cursor += length[i] + random.nextInt(10);
+            }
+            // the ranges of an almanac map are not listed in order
+            for (int i = count - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                swap(dest, i, j);
+                swap(src, i, j);
+                swap(length, i, j);
+            }
+            return new Stage(dest, src, length);
+        }
+
+        private static void swap(long[] values, int i, int j) {
+            long value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+
+        long map(long value) {
+            for (int i = 0; i < src.length; i++) {
+                if (value >= src[i] && value < src[i] + length[i])
+                    return dest[i] + value - src[i];
+            }
+            return value;
+        }
+
+        List<MappingRange> ranges() {
+            var ranges = new ArrayList<MappingRange>();
+            for (int i = 0; i < src.length; i++)
+                ranges.add(new MappingRange(dest[i], src[i], length[i]));
+            return ranges;
+        }
+
+        RangeTable table() {
+            return RangeTable.of(dest, src, length);
+        }
+    }
+}
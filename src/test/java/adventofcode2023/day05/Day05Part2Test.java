@@ -0,0 +1,66 @@
+package adventofcode2023.day05;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+
+import adventofcode2023.Checkpoint;
+import adventofcode2023.Fingerprint;
+import adventofcode2023.day05.Day05Part2.Almanac;
+import adventofcode2023.day05.Day05Part2.SeedRange;
+
+public class Day05Part2Test {
+    @Test
+    public void grammarKeepsTheKeywordsApartFromTheCategoryNames() throws Exception {
+        var almanac = Day05Part2.parse(Day05Part2.DEMO_INPUT);
+        var graph = almanac.graph();
+
+        assertEquals(DemoAlmanac.CATEGORIES, IntStream.range(0, graph.size()).mapToObj(graph::name).toList());
+        assertEquals("soil", almanac.getMapping("seed").to());
+        assertEquals(new HashSet<>(Day05Part2.seeds(Day05Part2.DEMO_INPUT)), new HashSet<>(almanac.seeds()));
+        assertEquals(82, graph.route("seed", "location").map(79));
+        assertEquals(46, almanac.seedsMapping().location(82));
+        assertEquals(46, almanac.lowestLocationForAllSeedsComposed());
+    }
+
+    @Test
+    public void seedsLine() {
+        assertEquals(2, Day05Part2.seeds(Day05Part2.DEMO_INPUT).size());
+        assertEquals(new Day05Part2.SeedRange(79, 14), Day05Part2.seeds(Day05Part2.DEMO_INPUT).get(0));
+    }
+
+    @Test
+    public void bruteForceResumesFromTheCheckpoint() throws Exception {
+        var almanac = Almanac.of(List.of(new SeedRange(79, 14), new SeedRange(55, 13)), DemoAlmanac.graph());
+        var file = Files.createTempDirectory("day05").resolve("day05.checkpoint");
+        var checkpoint = new Checkpoint(file, Duration.ZERO, Fingerprint.of("demo"));
+
+        assertEquals(46, almanac.lowestLocationForAllSeeds(checkpoint, false));
+        assertFalse(Files.exists(file));
+
+        // interrupted halfway through the second seed range
+        var state = new Properties();
+        state.setProperty("range", "1");
+        state.setProperty("offset", "6");
+        state.setProperty("lowest", "1000");
+        checkpoint.save(state);
+        var route = almanac.graph().route("seed", "location");
+        long expected = LongStream.range(55 + 6, 55 + 13).map(route::map).min().getAsLong();
+        assertEquals(expected, almanac.lowestLocationForAllSeeds(checkpoint, true));
+        assertFalse(Files.exists(file));
+
+        checkpoint.save(state);
+        var other = new Checkpoint(file, Duration.ZERO, Fingerprint.of("another almanac"));
+        assertThrows(IllegalStateException.class, () -> almanac.lowestLocationForAllSeeds(other, true));
+    }
+}
@@ -0,0 +1,34 @@
+package adventofcode2023.day05;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The maps of the example almanac, without going through the grammar.
+ */
+final class DemoAlmanac {
+    static final List<String> CATEGORIES = List.of("seed", "soil", "fertilizer", "water", "light", "temperature",
+            "humidity", "location");
+
+    private DemoAlmanac() {
+    }
+
+    static RangeTable[] stages() {
+        return new RangeTable[] {
+                RangeTable.of(new long[] { 50, 52 }, new long[] { 98, 50 }, new long[] { 2, 48 }),
+                RangeTable.of(new long[] { 0, 37, 39 }, new long[] { 15, 52, 0 }, new long[] { 37, 2, 15 }),
+                RangeTable.of(new long[] { 49, 0, 42, 57 }, new long[] { 53, 11, 0, 7 }, new long[] { 8, 42, 7, 4 }),
+                RangeTable.of(new long[] { 88, 18 }, new long[] { 18, 25 }, new long[] { 7, 70 }),
+                RangeTable.of(new long[] { 45, 81, 68 }, new long[] { 77, 45, 64 }, new long[] { 23, 19, 13 }),
+                RangeTable.of(new long[] { 0, 1 }, new long[] { 69, 0 }, new long[] { 1, 69 }),
+                RangeTable.of(new long[] { 60, 56 }, new long[] { 56, 93 }, new long[] { 37, 4 }), };
+    }
+
+    static CategoryGraph graph() {
+        var stages = stages();
+        var edges = new ArrayList<CategoryGraph.Edge>();
+        for (int i = 0; i < stages.length; i++)
+            edges.add(new CategoryGraph.Edge(CATEGORIES.get(i), CATEGORIES.get(i + 1), stages[i]));
+        return CategoryGraph.of(edges);
+    }
+}
@@ -0,0 +1,63 @@
+package adventofcode2023.day05;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MergeJoinLookupTest {
+    @Test
+    public void matchesRouteInInputOrderOnRangeBoundaries() {
+        var stages = DemoAlmanac.stages();
+        var route = DemoAlmanac.graph().route("seed", "location");
+
+        // every start and end of every range, one off either side, twice
+        var seeds = new ArrayList<Long>();
+        for (RangeTable stage : stages) {
+            for (int r = 0; r < stage.size(); r++) {
+                for (long boundary : new long[] { stage.start(r), stage.end(r) }) {
+                    for (long seed = Math.max(0, boundary - 1); seed <= boundary + 1; seed++) {
+                        seeds.add(seed);
+                        seeds.add(seed);
+                    }
+                }
+            }
+        }
+        Collections.shuffle(seeds, new Random(27));
+        var values = seeds.stream().mapToLong(Long::longValue).toArray();
+
+        assertArrayEquals(expected(route, values), mapped(stages, values));
+    }
+
+    @Test
+    public void matchesRouteOnRandomSeedsWithDuplicates() {
+        var random = new Random(3);
+        var stages = DemoAlmanac.stages();
+        var route = DemoAlmanac.graph().route("seed", "location");
+        for (int round = 0; round < 50; round++) {
+            var values = random.longs(1 + random.nextInt(5000), 0, 1 + random.nextInt(150)).toArray();
+            assertArrayEquals(expected(route, values), mapped(stages, values));
+        }
+    }
+
+    @Test
+    public void emptyBatch() {
+        assertArrayEquals(new long[0], mapped(DemoAlmanac.stages(), new long[0]));
+    }
+
+    private static long[] expected(CategoryGraph.Route route, long[] values) {
+        var expected = new long[values.length];
+        for (int i = 0; i < values.length; i++)
+            expected[i] = route.map(values[i]);
+        return expected;
+    }
+
+    private static long[] mapped(RangeTable[] stages, long[] values) {
+        var mapped = values.clone();
+        MergeJoinLookup.map(stages, mapped);
+        return mapped;
+    }
+}
@@ -0,0 +1,83 @@
+package adventofcode2023.day05;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class OffHeapRangeTableTest {
+    @Test
+    public void mappedTablesLookUpLikeHeapTables() throws IOException {
+        var random = new Random(30);
+        var directory = Files.createTempDirectory("tables");
+        try (var arena = Arena.ofConfined()) {
+            for (int round = 0; round < 50; round++) {
+                var heap = randomTable(random, random.nextInt(40));
+                var file = directory.resolve(round + ".table");
+                OffHeapRangeTable.write(heap, file);
+                var mapped = OffHeapRangeTable.map(file, arena);
+                var copy = OffHeapRangeTable.copyOf(heap, arena);
+
+                assertEquals(heap.size(), mapped.size());
+                for (long value = -10; value < 1100; value++) {
+                    assertEquals(heap.map(value), mapped.map(value));
+                    assertEquals(heap.map(value), copy.map(value));
+                }
+                long from = random.nextInt(1000);
+                long to = from + 1 + random.nextInt(200);
+                assertEquals(heap.lowest(from, to), mapped.lowest(from, to));
+            }
+        }
+    }
+
+    @Test
+    public void tablesAreWrittenAgainForAnotherInputOrWhenIncomplete() throws IOException {
+        var tables = Files.createTempDirectory("day05").resolve("day05.tables");
+        assertFalse(OffHeapRangeTable.isCurrent(tables, "demo"));
+
+        OffHeapRangeTable.writeAll(DemoAlmanac.graph(), tables, "demo");
+        assertTrue(OffHeapRangeTable.isCurrent(tables, "demo"));
+        assertFalse(OffHeapRangeTable.isCurrent(tables, "other input"));
+        var graph = OffHeapRangeTable.mapAll(tables);
+        assertEquals(DemoAlmanac.CATEGORIES.size(), graph.size());
+        assertEquals(82, graph.route("seed", "location").map(79));
+        assertEquals(46, graph.route("seed", "location").map(82));
+
+        // a table cut short, like after a crash while writing it
+        try (var channel = FileChannel.open(tables.resolve("water-to-light.table"), StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - Long.BYTES);
+        }
+        assertFalse(OffHeapRangeTable.isCurrent(tables, "demo"));
+
+        OffHeapRangeTable.writeAll(DemoAlmanac.graph(), tables, "demo");
+        assertTrue(OffHeapRangeTable.isCurrent(tables, "demo"));
+        try (var files = Files.list(tables.getParent())) {
+            assertEquals(1, files.count());
+        }
+
+        Files.delete(tables.resolve("tables.properties"));
+        assertFalse(OffHeapRangeTable.isCurrent(tables, "demo"));
+    }
+
+    private static RangeTable randomTable(Random random, int count) {
+        var dest = new long[count];
+        var src = new long[count];
+        var length = new long[count];
+        long cursor = random.nextInt(20);
+        for (int i = 0; i < count; i++) {
+            src[i] = cursor;
+            length[i] = 1 + random.nextInt(30);
+            dest[i] = random.nextInt(2000);
+            cursor += length[i] + random.nextInt(5);
+        }
+        return RangeTable.of(dest, src, length);
+    }
+}
@@ -0,0 +1,74 @@
+package adventofcode2023.day07;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class HandColumnsTest {
+    private static final String DEMO = """
+            32T3K 765
+            T55J5 684
+            KK677 28
+            KTJJT 220
+            QQQJA 483
+            """;
+
+    @Test
+    public void demo() throws IOException {
+        assertEquals(6440, read(DEMO, false).totalWinnings());
+        assertEquals(5905, read(DEMO, true).totalWinnings());
+    }
+
+    @Test
+    public void keysOfTheHands() throws IOException {
+        var lines = DEMO.lines().toList();
+        assertArrayEquals(lines.stream().mapToInt(line -> Day07Part1.Hand.valueOf(line).key()).toArray(),
+                read(DEMO, false).keys());
+        assertArrayEquals(lines.stream().mapToInt(line -> Day07Part2.Hand.valueOf(line).key()).toArray(),
+                read(DEMO, true).keys());
+        assertArrayEquals(new long[] { 765, 684, 28, 220, 483 }, read(DEMO, false).bids());
+    }
+
+    @Test
+    public void lineEndsAndSpaces() throws IOException {
+        assertEquals(6440, read(DEMO.replace("\n", "\r\n"), false).totalWinnings());
+        assertEquals(6440, read(DEMO.strip(), false).totalWinnings());
+        assertEquals(6440, read("\n\n" + DEMO.replace("\n", "  \n\n") + "   \n", false).totalWinnings());
+        assertEquals(6440, read(DEMO.replace(" ", "   ").replace("\n", "\n  "), false).totalWinnings());
+        assertEquals(0, read("", false).size());
+        assertEquals(0, read("\r\n \n", false).size());
+    }
+
+    @Test
+    public void malformedLines() {
+        assertError("Line 2 has a hand of 3 cards", "32T3K 765\n32T 765\n");
+        assertError("Line 1 has a hand of 4 cards", "32T3");
+        assertError("Line 1 has no space between the hand and the bid", "32T3K765\n");
+        assertError("Line 1 has an invalid card 'X'", "32X3K 765\n");
+        assertError("Line 1 has no bid", "32T3K \n");
+        assertError("Line 1 has an invalid bid", "32T3K -765\n");
+        assertError("Line 1 has an invalid character after the bid", "32T3K 765x\n");
+        assertError("Line 1 has more than one bid", "32T3K 765 1\n");
+        assertError("Line 3 has a bid that is too large", "32T3K 765\r\n\r\n32T3K 9223372036854775808\r\n");
+    }
+
+    @Test
+    public void largestBid() throws IOException {
+        assertArrayEquals(new long[] { Long.MAX_VALUE }, read("32T3K 9223372036854775807", false).bids());
+    }
+
+    private static void assertError(String message, String input) {
+        var e = assertThrows(IllegalArgumentException.class, () -> read(input, false));
+        assertEquals(message, e.getMessage());
+    }
+
+    private static HandColumns read(String input, boolean jokers) throws IOException {
+        return HandColumns.read(new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII)), jokers);
+    }
+}
@@ -0,0 +1,115 @@
+package adventofcode2023.day07;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HandRankingTest {
+    private static final List<String> DEMO = List.of("32T3K 765", "T55J5 684", "KK677 28", "KTJJT 220", "QQQJA 483");
+
+    @Test
+    public void demoWithoutJokers() {
+        var hands = DEMO.stream().map(Day07Part1.Hand::valueOf).toList();
+        var keys = hands.stream().mapToInt(Day07Part1.Hand::key).toArray();
+        var bids = hands.stream().mapToLong(Day07Part1.Hand::bid).toArray();
+        assertEquals(6440, HandRanking.totalWinnings(keys, bids));
+    }
+
+    @Test
+    public void demoWithJokers() {
+        var hands = DEMO.stream().map(Day07Part2.Hand::valueOf).toList();
+        var keys = hands.stream().mapToInt(Day07Part2.Hand::key).toArray();
+        var bids = hands.stream().mapToLong(Day07Part2.Hand::bid).toArray();
+        assertEquals(5905, HandRanking.totalWinnings(keys, bids));
+    }
+
+    @Test
+    public void tableHasTheKeysOfTheHands() {
+        for (String line : DEMO) {
+            var hand = Day07Part1.Hand.valueOf(line);
+            assertEquals(hand.key(), HandTable.key(hand.code(), false));
+            var jokerHand = Day07Part2.Hand.valueOf(line);
+            assertEquals(jokerHand.key(), HandTable.key(jokerHand.code(), true));
+        }
+    }
+
+    @Test
+    public void sortsLikeTheComparator() {
+        var random = new Random(7);
+        var hands = random.ints(10_000, 0, 1 << 23).mapToObj(key -> new long[] { key, random.nextInt(1000) })
+                .toArray(long[][]::new);
+        var keys = Arrays.stream(hands).mapToInt(hand -> (int) hand[0]).toArray();
+        var bids = Arrays.stream(hands).mapToLong(hand -> hand[1]).toArray();
+        HandRanking.sort(keys, bids);
+
+        // a stable sort, so hands with equal keys keep their bids in order
+        Arrays.sort(hands, (a, b) -> Long.compare(a[0], b[0]));
+        assertArrayEquals(Arrays.stream(hands).mapToInt(hand -> (int) hand[0]).toArray(), keys);
+        assertArrayEquals(Arrays.stream(hands).mapToLong(hand -> hand[1]).toArray(), bids);
+    }
+
+    @Test
+    public void sortsARangeWithAnOddNumberOfPasses() {
+        var random = new Random(9);
+        var keys = random.ints(1_000, 0, 1 << 24).toArray();
+        var bids = random.longs(keys.length, 0, 1000).toArray();
+        var expectedKeys = keys.clone();
+        var expectedBids = bids.clone();
+        HandRanking.sort(keys, bids, 100, 900, 8, 3);
+
+        var hands = new long[800][];
+        for (int i = 0; i < hands.length; i++)
+            hands[i] = new long[] { expectedKeys[100 + i], expectedBids[100 + i] };
+        Arrays.sort(hands, (a, b) -> Long.compare(a[0], b[0]));
+        for (int i = 0; i < hands.length; i++) {
+            expectedKeys[100 + i] = (int) hands[i][0];
+            expectedBids[100 + i] = hands[i][1];
+        }
+        assertArrayEquals(expectedKeys, keys);
+        assertArrayEquals(expectedBids, bids);
+    }
+
+    @Test
+    public void parallelRankingMatchesSequential() {
+        var random = new Random(11);
+        var keys = new int[100_000];
+        var bids = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            int cards = random.nextInt(1 << 20);
+            keys[i] = HandType.of(cards, false).strength() << HandRanking.TYPE_SHIFT | cards;
+            bids[i] = random.nextInt(1000);
+        }
+        assertEquals(HandRanking.totalWinnings(keys.clone(), bids.clone()),
+                HandRanking.totalWinningsParallel(keys, bids));
+    }
+
+    @Test
+    public void onlineRankingMatchesSortingAfterEveryBatch() {
+        var random = new Random(45);
+        // few distinct hands, so many hands have equal keys
+        var codes = random.ints(50, 0, HandTable.HANDS).toArray();
+        for (boolean jokers : new boolean[] { false, true }) {
+            var online = new OnlineRanking();
+            var keys = new int[0];
+            var bids = new long[0];
+            for (int batch = 0; batch < 20; batch++) {
+                int from = keys.length;
+                keys = Arrays.copyOf(keys, from + random.nextInt(100));
+                bids = Arrays.copyOf(bids, keys.length);
+                long total = online.totalWinnings();
+                for (int i = from; i < keys.length; i++) {
+                    keys[i] = HandTable.key(codes[random.nextInt(codes.length)], jokers);
+                    bids[i] = random.nextInt(1000);
+                    total = online.insert(keys[i], bids[i]);
+                }
+                assertEquals(HandRanking.totalWinnings(keys.clone(), bids.clone()), total);
+                assertEquals(total, online.totalWinnings());
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package adventofcode2023.day08;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class GhostCyclesTest {
+    @Test
+    public void example() {
+        var graph = CompiledGraph.parse("""
+                LR
+
+                11A = (11B, XXX)
+                11B = (XXX, 11Z)
+                11Z = (11B, XXX)
+                22A = (22B, XXX)
+                22B = (22C, 22C)
+                22C = (22Z, 22Z)
+                22Z = (22B, 22B)
+                XXX = (XXX, XXX)
+                """.lines().toList());
+        var cycles = List.of(
+                GhostCycles.analyse(graph, graph.node("11A"), graph::isEnd),
+                GhostCycles.analyse(graph, graph.node("22A"), graph::isEnd));
+
+        assertEquals(OptionalLong.of(6), GhostCycles.firstCommonHit(cycles));
+    }
+
+    @Test
+    public void neverAligned() {
+        // both ghosts alternate between an end node and another node, out of phase
+        var graph = CompiledGraph.parse("""
+                L
+
+                AAA = (AAZ, AAZ)
+                AAZ = (AAA, AAA)
+                BBZ = (BBA, BBA)
+                BBA = (BBZ, BBZ)
+                """.lines().toList());
+        var cycles = List.of(
+                GhostCycles.analyse(graph, graph.node("AAA"), graph::isEnd),
+                GhostCycles.analyse(graph, graph.node("BBZ"), graph::isEnd));
+
+        assertEquals(OptionalLong.empty(), GhostCycles.firstCommonHit(cycles));
+    }
+
+    @Test
+    public void matchesSimulationWithTailsAndMultipleHits() {
+        var random = new Random(8);
+        for (int round = 0; round < 500; round++) {
+            int size = 2 + random.nextInt(12);
+            var instructions = random.ints(1 + random.nextInt(5), 0, 2).toArray();
+            var nodes = new int[size][2];
+            var end = new boolean[size];
+            var input = new ArrayList<String>();
+            var tape = new StringBuilder();
+            for (int instruction : instructions)
+                tape.append(instruction == 0 ? 'L' : 'R');
+            input.add(tape.toString());
+            input.add("");
+            for (int n = 0; n < size; n++) {
+                nodes[n][0] = random.nextInt(size);
+                nodes[n][1] = random.nextInt(size);
+                end[n] = random.nextInt(3) == 0;
+                input.add("N" + n + " = (N" + nodes[n][0] + ", N" + nodes[n][1] + ")");
+            }
+            var starts = random.ints(1 + random.nextInt(3), 0, size).toArray();
+
+            var graph = CompiledGraph.parse(input);
+            var cycles = new ArrayList<GhostCycles.Cycle>();
+            for (int start : starts)
+                cycles.add(GhostCycles.analyse(graph, start, n -> end[n]));
+
+            long limit = 100_000;
+            var expected = simulate(instructions, nodes, end, starts.clone(), limit);
+            var actual = GhostCycles.firstCommonHit(cycles);
+            if (expected.isPresent())
+                assertEquals(expected, actual);
+            else
+                assertTrue(actual.isEmpty() || actual.getAsLong() > limit);
+        }
+    }
+
+    private static OptionalLong simulate(int[] instructions, int[][] nodes, boolean[] end, int[] ghosts,
+            long limit) {
+        for (long step = 1; step <= limit; step++) {
+            int instruction = instructions[(int) ((step - 1) % instructions.length)];
+            boolean allEnd = true;
+            for (int g = 0; g < ghosts.length; g++) {
+                ghosts[g] = nodes[ghosts[g]][instruction];
+                allEnd &= end[ghosts[g]];
+            }
+            if (allEnd)
+                return OptionalLong.of(step);
+        }
+        return OptionalLong.empty();
+    }
+}
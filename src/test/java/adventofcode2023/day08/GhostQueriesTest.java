@@ -0,0 +1,87 @@
+package adventofcode2023.day08;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class GhostQueriesTest {
+    private static final long BOUND = 20_000;
+
+    @Test
+    public void example() {
+        var queries = new GhostQueries(CompiledGraph.parse("""
+                LR
+
+                11A = (11B, XXX)
+                11B = (XXX, 11Z)
+                11Z = (11B, XXX)
+                22A = (22B, XXX)
+                22B = (22C, 22C)
+                22C = (22Z, 22Z)
+                22Z = (22B, 22B)
+                XXX = (XXX, XXX)
+                """.lines().toList()));
+
+        assertEquals(OptionalLong.of(6), queries.steps(List.of("11A", "22A"), name -> name.endsWith("Z")));
+        assertEquals(OptionalLong.of(2), queries.steps("11A", "11Z"));
+        assertEquals(OptionalLong.of(3), queries.steps("22A", "22Z"));
+        assertEquals(OptionalLong.empty(), queries.steps("11A", "22Z"));
+        // one walk per start node, whatever the end nodes
+        assertEquals(2, queries.cachedWalks());
+    }
+
+    @Test
+    public void offsetsAndEndSetsMatchSimulation() {
+        var random = new Random(38);
+        for (int round = 0; round < 300; round++) {
+            var graph = RandomNetworks.network(random, 2 + random.nextInt(8), 4, 3);
+            var queries = new GhostQueries(graph);
+            var keys = new HashSet<List<Integer>>();
+            for (int query = 0; query < 10; query++) {
+                var starts = random.ints(1 + random.nextInt(3), 0, graph.size()).toArray();
+                int offset = random.nextInt(graph.tape.length);
+                var ends = new long[(graph.size() + 63) >>> 6];
+                for (int node = 0; node < graph.size(); node++) {
+                    if (random.nextInt(3) == 0)
+                        ends[0] |= 1L << node;
+                }
+                for (int start : starts)
+                    keys.add(List.of(start, offset));
+
+                var expected = simulate(graph, starts, offset, ends);
+                var steps = queries.steps(starts, offset, ends);
+                if (expected.isPresent())
+                    assertEquals(expected, steps);
+                else
+                    assertTrue(steps.isEmpty() || steps.getAsLong() > BOUND);
+
+                // the end set was copied, changing the array doesn't change the cached query
+                var copy = ends.clone();
+                ends[0] = ~ends[0];
+                assertEquals(steps, queries.steps(starts, offset, copy));
+            }
+            assertEquals(keys.size(), queries.cachedWalks());
+        }
+    }
+
+    private static OptionalLong simulate(CompiledGraph graph, int[] starts, int offset, long[] ends) {
+        var nodes = starts.clone();
+        for (long step = 1; step <= BOUND; step++) {
+            int instruction = graph.tape[(int) ((offset + step - 1) % graph.tape.length)];
+            boolean all = true;
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = graph.next(nodes[i], instruction);
+                all &= CompiledGraph.contains(ends, nodes[i]);
+            }
+            if (all)
+                return OptionalLong.of(step);
+        }
+        return OptionalLong.empty();
+    }
+}
@@ -0,0 +1,85 @@
+package adventofcode2023.day08;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.OptionalLong;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class GraphAnalysisTest {
+    @Test
+    public void example() {
+        var graph = CompiledGraph.parse("""
+                LR
+
+                11A = (11B, XXX)
+                11B = (XXX, 11Z)
+                11Z = (11B, XXX)
+                22A = (22B, XXX)
+                22B = (22C, 22C)
+                22C = (22Z, 22Z)
+                22Z = (22B, 22B)
+                XXX = (XXX, XXX)
+                """.lines().toList());
+        var analysis = GraphAnalysis.analyse(graph, graph.nodes(name -> name.endsWith("A")));
+
+        assertEquals(OptionalLong.of(6), analysis.solve());
+    }
+
+    @Test
+    public void ghostsThatNeverLineUp() {
+        // both ghosts reach their end nodes, but always at steps of different parity
+        var graph = CompiledGraph.parse("""
+                L
+
+                AAA = (BBB, BBB)
+                BBB = (AAZ, AAZ)
+                AAZ = (BBB, BBB)
+                CCA = (CCZ, CCZ)
+                CCZ = (DDD, DDD)
+                DDD = (CCZ, CCZ)
+                """.lines().toList());
+        var analysis = GraphAnalysis.analyse(graph, graph.nodes(name -> name.endsWith("A")));
+
+        assertEquals(GraphAnalysis.Engine.CRT, analysis.engine());
+        assertEquals(OptionalLong.empty(), analysis.solve());
+    }
+
+    @Test
+    public void unreachableEndNodes() {
+        var graph = CompiledGraph.parse("""
+                L
+
+                AAA = (AAZ, AAZ)
+                AAZ = (AAA, AAA)
+                BBA = (XXX, BBZ)
+                BBZ = (BBZ, BBZ)
+                XXX = (XXX, XXX)
+                """.lines().toList());
+        var analysis = GraphAnalysis.analyse(graph, graph.nodes(name -> name.endsWith("A")));
+
+        assertEquals(GraphAnalysis.Engine.UNSATISFIABLE, analysis.engine());
+        assertEquals(OptionalLong.empty(), analysis.solve());
+        assertEquals(OptionalLong.empty(), GraphAnalysis.analyse(graph, new int[0]).solve());
+    }
+
+    @Test
+    public void matchesCycleAnalysis() {
+        var random = new Random(37);
+        int unsolvable = 0;
+        for (int round = 0; round < 1000; round++) {
+            var graph = RandomNetworks.network(random, 2 + random.nextInt(12), 5, 3);
+            var starts = random.ints(1 + random.nextInt(4), 0, graph.size()).toArray();
+
+            var expected = GhostCycles.firstCommonHit(Arrays.stream(starts)
+                    .mapToObj(start -> GhostCycles.analyse(graph, start, graph::isEnd)).toList());
+            assertEquals(expected, GraphAnalysis.analyse(graph, starts).solve());
+            unsolvable += expected.isEmpty() ? 1 : 0;
+        }
+        // the random networks cover both outcomes
+        assertTrue(unsolvable > 0 && unsolvable < 1000);
+    }
+}
@@ -0,0 +1,58 @@
+package adventofcode2023.day08;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class JumpTableTest {
+    @Test
+    public void matchesSteppingOneStepAtATime() {
+        var random = new Random(33);
+        for (int round = 0; round < 300; round++) {
+            var graph = RandomNetworks.network(random, 2 + random.nextInt(12), 7, 4);
+            int tape = graph.tape.length;
+            long maxSteps = 70L * tape;
+            var table = JumpTable.build(graph, maxSteps);
+            var walker = new SingleWalker(graph);
+
+            // within the first pass, around whole passes and around 2^k passes
+            var steps = new ArrayList<Long>();
+            for (long n = 0; n <= tape + 1; n++)
+                steps.add(n);
+            for (long passes = 1; passes * tape <= maxSteps; passes *= 2) {
+                for (long n = passes * tape - 1; n <= passes * tape + 1 && n <= maxSteps; n++)
+                    steps.add(n);
+            }
+            for (int i = 0; i < 10; i++)
+                steps.add((long) random.nextInt((int) maxSteps + 1));
+
+            for (int node = 0; node < graph.size(); node++) {
+                for (long n : steps) {
+                    assertEquals(RandomNetworks.step(graph, node, n), table.positionAfter(node, n));
+                    assertEquals(walker.walk(node, graph.ends, n), table.firstEnd(node, n));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void firstEndWithinAPass() {
+        var graph = CompiledGraph.parse("""
+                LLLLR
+
+                AAA = (BBB, XXX)
+                BBB = (CCZ, XXX)
+                CCZ = (AAA, XXX)
+                XXX = (XXX, XXX)
+                """.lines().toList());
+        var table = JumpTable.build(graph, 100);
+
+        assertEquals(2, table.firstEnd(graph.node("AAA"), 100));
+        assertEquals(-1, table.firstEnd(graph.node("AAA"), 1));
+        assertEquals(-1, table.firstEnd(graph.node("XXX"), 100));
+        assertEquals(graph.node("XXX"), table.positionAfter(graph.node("AAA"), 5));
+    }
+}
@@ -0,0 +1,98 @@
+package adventofcode2023.day08;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.OptionalLong;
+import java.util.Random;
+
+import org.junit.Test;
+
+import adventofcode2023.Checkpoint;
+import adventofcode2023.Fingerprint;
+
+public class LockstepWalkTest {
+    private static final CompiledGraph EXAMPLE = CompiledGraph.parse("""
+            LR
+
+            11A = (11B, XXX)
+            11B = (XXX, 11Z)
+            11Z = (11B, XXX)
+            22A = (22B, XXX)
+            22B = (22C, 22C)
+            22C = (22Z, 22Z)
+            22Z = (22B, 22B)
+            XXX = (XXX, XXX)
+            """.lines().toList());
+
+    @Test
+    public void hitInsideAnEpoch() throws InterruptedException {
+        assertEquals(OptionalLong.of(6), walk(EXAMPLE, starts(EXAMPLE), 4, 100));
+        assertEquals(OptionalLong.of(6), walk(EXAMPLE, starts(EXAMPLE), 1000, 100));
+    }
+
+    @Test
+    public void hitAtTheEndOfAnEpoch() throws InterruptedException {
+        assertEquals(OptionalLong.of(6), walk(EXAMPLE, starts(EXAMPLE), 3, 100));
+        assertEquals(OptionalLong.of(6), walk(EXAMPLE, starts(EXAMPLE), 6, 6));
+    }
+
+    @Test
+    public void noHitWithinTheBound() throws InterruptedException {
+        assertEquals(OptionalLong.empty(), walk(EXAMPLE, starts(EXAMPLE), 4, 5));
+
+        var neverAligned = CompiledGraph.parse("""
+                L
+
+                AAA = (AAZ, AAZ)
+                AAZ = (AAA, AAA)
+                BBZ = (BBA, BBA)
+                BBA = (BBZ, BBZ)
+                """.lines().toList());
+        assertEquals(OptionalLong.empty(), walk(neverAligned,
+                new int[] { neverAligned.node("AAA"), neverAligned.node("BBZ") }, 7, 1000));
+    }
+
+    @Test
+    public void matchesCycleAnalysis() throws InterruptedException {
+        var random = new Random(34);
+        for (int round = 0; round < 200; round++) {
+            var graph = RandomNetworks.network(random, 2 + random.nextInt(10), 5, 3);
+            var starts = random.ints(1 + random.nextInt(3), 0, graph.size()).toArray();
+            int epochSteps = 1 + random.nextInt(20);
+            long maxSteps = 1 + random.nextInt(300);
+
+            var expected = GhostCycles.firstCommonHit(Arrays.stream(starts)
+                    .mapToObj(start -> GhostCycles.analyse(graph, start, graph::isEnd)).toList());
+            if (expected.isPresent() && expected.getAsLong() > maxSteps)
+                expected = OptionalLong.empty();
+            assertEquals(expected, walk(graph, starts, epochSteps, maxSteps));
+        }
+    }
+
+    @Test
+    public void resumesFromASavedState() throws InterruptedException, IOException {
+        var starts = starts(EXAMPLE);
+        var nodes = Arrays.stream(starts).map(start -> RandomNetworks.step(EXAMPLE, start, 3)).toArray();
+        var checkpoint = new Checkpoint(Files.createTempDirectory("day08").resolve("day08.checkpoint"),
+                Duration.ZERO, Fingerprint.of("example"));
+        checkpoint.save(new WalkState(3, nodes).store(EXAMPLE));
+
+        var state = WalkState.load(EXAMPLE, checkpoint.load().orElseThrow());
+        assertEquals(3, state.step());
+        assertEquals(Arrays.toString(nodes), Arrays.toString(state.nodes()));
+        assertEquals(OptionalLong.of(6), new LockstepWalk(EXAMPLE, state, 2, 100).run());
+    }
+
+    private static int[] starts(CompiledGraph graph) {
+        return graph.nodes(name -> name.endsWith("A"));
+    }
+
+    private static OptionalLong walk(CompiledGraph graph, int[] starts, int epochSteps, long maxSteps)
+            throws InterruptedException {
+        return new LockstepWalk(graph, starts, epochSteps, maxSteps).run();
+    }
+}
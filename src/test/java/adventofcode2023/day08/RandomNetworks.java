@@ -0,0 +1,42 @@
+package adventofcode2023.day08;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Small random networks to check the walking engines against plain stepping.
+ */
+final class RandomNetworks {
+    private RandomNetworks() {
+    }
+
+    /**
+     * A network of {@code size} nodes {@code N0A}, {@code N1Z} and so on with
+     * random edges and a random tape of at most {@code maxTape} instructions.
+     * About one in {@code endOdds} nodes is an end node, its name ends in Z.
+     */
+    static CompiledGraph network(Random random, int size, int maxTape, int endOdds) {
+        var names = new String[size];
+        for (int n = 0; n < size; n++)
+            names[n] = "N" + n + (random.nextInt(endOdds) == 0 ? "Z" : "A");
+        var input = new ArrayList<String>();
+        var tape = new StringBuilder();
+        for (int i = 1 + random.nextInt(maxTape); i > 0; i--)
+            tape.append(random.nextBoolean() ? 'L' : 'R');
+        input.add(tape.toString());
+        input.add("");
+        for (int n = 0; n < size; n++)
+            input.add(names[n] + " = (" + names[random.nextInt(size)] + ", " + names[random.nextInt(size)] + ")");
+        return CompiledGraph.parse(input);
+    }
+
+    /**
+     * Where a walker starting on {@code node} is after {@code steps} steps, one
+     * step at a time.
+     */
+    static int step(CompiledGraph graph, int node, long steps) {
+        for (long step = 0; step < steps; step++)
+            node = graph.next[2 * node + graph.tape[(int) (step % graph.tape.length)]];
+        return node;
+    }
+}
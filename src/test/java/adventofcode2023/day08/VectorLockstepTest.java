@@ -0,0 +1,56 @@
+package adventofcode2023.day08;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class VectorLockstepTest {
+    @Test
+    public void matchesTheLockstepWalk() throws InterruptedException {
+        var random = new Random(36);
+        for (int round = 0; round < 200; round++) {
+            var graph = RandomNetworks.network(random, 2 + random.nextInt(12), 5, 2);
+            // up to 20 ghosts, so also more than one vector with padding in the last one
+            var starts = random.ints(1 + random.nextInt(20), 0, graph.size()).toArray();
+            long maxSteps = 1 + random.nextInt(300);
+
+            var expected = new LockstepWalk(graph, starts, 1 + random.nextInt(20), maxSteps).run();
+            long steps = new VectorLockstep(graph, WalkState.start(starts)).walk(maxSteps);
+            assertEquals(expected.orElse(-1), steps);
+        }
+    }
+
+    @Test
+    public void stateAfterAPartialWalk() {
+        var random = new Random(6);
+        for (int round = 0; round < 100; round++) {
+            var graph = RandomNetworks.network(random, 2 + random.nextInt(12), 5, 2);
+            var starts = random.ints(1 + random.nextInt(20), 0, graph.size()).toArray();
+            long first = random.nextInt(10);
+            long second = random.nextInt(10);
+
+            var walk = new VectorLockstep(graph, WalkState.start(starts));
+            long hit = walk.walk(first);
+            var state = walk.state();
+            assertEquals(hit >= 0 ? hit : first, state.step());
+            assertArrayEquals(Arrays.stream(starts).map(start -> RandomNetworks.step(graph, start, state.step()))
+                    .toArray(), state.nodes());
+
+            // continuing from the state finds the same hit as a single walk
+            if (hit < 0)
+                assertEquals(new VectorLockstep(graph, WalkState.start(starts)).walk(first + second),
+                        new VectorLockstep(graph, state).walk(second));
+        }
+    }
+
+    @Test
+    public void noGhosts() {
+        var graph = RandomNetworks.network(new Random(1), 3, 2, 2);
+        assertThrows(IllegalArgumentException.class, () -> new VectorLockstep(graph, WalkState.start(new int[0])));
+    }
+}